@@ -5,6 +5,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 
 import baseclasses.Aircraft;
@@ -15,6 +16,9 @@ import baseclasses.IAircraftDAO;
 /**
  * The AircraftDAO class is responsible for loading aircraft data from CSV files
  * and contains methods to help the system find aircraft when scheduling
+ * The fleet is held as parallel arrays, with type codes and airport codes encoded as ints,
+ * so the finders are tight loops over primitives that only touch the Aircraft objects they return
+ * Loads build a new Fleet and publish it in one step, so any number of threads can read without locking
  */
 public class AircraftDAO implements IAircraftDAO 
 {
@@ -27,11 +31,57 @@ public class AircraftDAO implements IAircraftDAO
      *
 	 * Initially, this contains some starter code to help you get started in reading the CSV file...
 	 */
-	private List<Aircraft> aircrafts = new ArrayList<Aircraft>();
+	private volatile Fleet fleet = new Fleet(null);
+	private volatile DataValidator validator;
+
+	/**
+	 * Sets the validator that checks each row as it is loaded
+	 * With no validator, the first bad row fails the whole load as before
+	 * @param validator the validator to report problems to, or null for none
+	 */
+	public void setValidator(DataValidator validator)
+	{
+		this.validator = validator;
+	}
+
+	DataValidator getValidator()
+	{
+		return validator;
+	}
+
+	/**
+	 * Returns an object that is replaced by every load and reset, so the same object means the same aircraft
+	 * @return the current version of the fleet
+	 */
+	Object getVersion()
+	{
+		return fleet;
+	}
+
+	/**
+	 * Adds the aircraft of DAOs loaded separately to this one, publishing them all in one step
+	 * An aircraft with the tail code of one already loaded replaces it, so of the same tail code the last DAO given wins
+	 * @param shards the DAOs to merge, in order
+	 */
+	synchronized void merge(List<AircraftDAO> shards)
+	{
+		Fleet next = new Fleet(fleet);
+		for(AircraftDAO shard : shards)
+		{
+			Fleet f = shard.fleet;
+			for(int i = 0; i < f.count; i++)
+			{
+				next.put(f.aircrafts[i]);
+			}
+		}
+		fleet = next;
+	}
 	
 	@Override
-	public void loadAircraftData(Path p) throws DataLoadingException 
+	public synchronized void loadAircraftData(Path p) throws DataLoadingException 
 	{	
+		Fleet next = new Fleet(fleet);
+		DataValidator check = validator;
 		try 
 		{
 			//open the file
@@ -42,30 +92,57 @@ public class AircraftDAO implements IAircraftDAO
 			
 			//skip the first line of the file - headers
 			reader.readLine();
+			int lineNumber = 1;
 			
 			while( (line = reader.readLine()) != null)
 			{
+				lineNumber++;
 				//each line has fields separated by commas, split into an array of fields
 				String[] fields = line.split(",");
 				Aircraft a = new Aircraft();
-				a.setTailCode(fields[0]);
-				a.setTypeCode(fields[1]);
-				a.setManufacturer(Aircraft.Manufacturer.valueOf(fields[2].toUpperCase()));
-				a.setModel(fields[3]);
-				a.setSeats(Integer.parseInt(fields[4]));
-				a.setCabinCrewRequired(Integer.parseInt(fields[5]));
-				a.setStartingPosition(fields[6]);
-				aircrafts.add(a);	
-				//print a line explaining what we've found
+				try
+				{
+					a.setTailCode(fields[0]);
+					a.setTypeCode(fields[1]);
+					a.setManufacturer(Aircraft.Manufacturer.valueOf(fields[2].toUpperCase()));
+					a.setModel(fields[3]);
+					a.setSeats(Integer.parseInt(fields[4]));
+					a.setCabinCrewRequired(Integer.parseInt(fields[5]));
+					a.setStartingPosition(fields[6]);
+				}
+				catch(RuntimeException e)
+				{
+					if(check == null)
+					{
+						throw e;
+					}
+					check.report(p, "line " + lineNumber, e.toString());
+					continue;
+				}
+				if(check != null)
+				{
+					if(next.tailCodes.containsKey(a.getTailCode().toUpperCase()))
+					{
+						check.report(p, "line " + lineNumber, "duplicate tail code " + a.getTailCode());
+						continue;
+					}
+					check.declareTypeCode(a.getTypeCode());
+					check.referAirport(a.getStartingPosition(), p, "line " + lineNumber);
+				}
+				next.add(a);
 			}
 		}
+		catch (DataValidationException e)
+		{
+			throw e;
+		}
 		catch (Exception e) 
 		{
 			//Check for other exception. 
 			//There was a problem reading the file
 			throw new DataLoadingException(e);
 		}
-
+		fleet = next;
 	}
 	
 	/**
@@ -76,12 +153,13 @@ public class AircraftDAO implements IAircraftDAO
 	@Override
 	public List<Aircraft> findAircraftBySeats(int seats) 
 	{
+		Fleet f = fleet;
 		ArrayList<Aircraft> seatAircrafts = new ArrayList<Aircraft>();
-		for (int i = 0; i < aircrafts.size(); i++) 
+		for (int i = 0; i < f.count; i++) 
 		{
-			if(seats <= aircrafts.get(i).getSeats())
+			if(seats <= f.seatCounts[i])
 			{
-				seatAircrafts.add(aircrafts.get(i));
+				seatAircrafts.add(f.aircrafts[i]);
 			}
 		}
 		return seatAircrafts;
@@ -95,12 +173,14 @@ public class AircraftDAO implements IAircraftDAO
 	@Override
 	public List<Aircraft> findAircraftByStartingPosition(String startingPosition) 
 	{
+		Fleet f = fleet;
 		ArrayList<Aircraft> startPosAircrafts = new ArrayList<Aircraft>();
-		for (int i = 0; i < aircrafts.size(); i++) 
+		int position = f.airportCodes.lookup(startingPosition);
+		for (int i = 0; position != -1 && i < f.count; i++) 
 		{
-			if(startingPosition.equals(aircrafts.get(i).getStartingPosition()))
+			if(position == f.positions[i])
 			{
-				startPosAircrafts.add(aircrafts.get(i));
+				startPosAircrafts.add(f.aircrafts[i]);
 			}
 		}
 		return startPosAircrafts;
@@ -114,15 +194,13 @@ public class AircraftDAO implements IAircraftDAO
 	@Override
 	public Aircraft findAircraftByTailCode(String tailCode) 
 	{
-		for (int i = 0; i < aircrafts.size(); i++) 
+		Fleet f = fleet;
+		Integer index = f.tailCodes.get(tailCode.toUpperCase());
+		if(index == null)
 		{
-			if(tailCode.equalsIgnoreCase(aircrafts.get(i).getTailCode()))
-			{
-				return aircrafts.get(i);
-			}
+			return null;
 		}
-		return null;
-		
+		return f.aircrafts[index];
 	}
 
 	/**
@@ -133,12 +211,14 @@ public class AircraftDAO implements IAircraftDAO
 	@Override
 	public List<Aircraft> findAircraftByType(String typeCode) 
 	{
+		Fleet f = fleet;
 		ArrayList<Aircraft> typeAircrafts = new ArrayList<Aircraft>();
-		for (int i = 0; i < aircrafts.size(); i++) 
+		int type = f.typeCodes.lookup(typeCode);
+		for (int i = 0; type != -1 && i < f.count; i++) 
 		{
-			if(typeCode.equals(aircrafts.get(i).getTypeCode()))
+			if(type == f.types[i])
 			{
-				typeAircrafts.add(aircrafts.get(i));
+				typeAircrafts.add(f.aircrafts[i]);
 			}
 		}
 		return typeAircrafts;
@@ -151,12 +231,8 @@ public class AircraftDAO implements IAircraftDAO
 	@Override
 	public List<Aircraft> getAllAircraft() 
 	{
-		ArrayList<Aircraft> newAircrafts = new ArrayList<Aircraft>();
-		for (int i = 0; i < aircrafts.size(); i++) 
-		{
-			newAircrafts.add(aircrafts.get(i));
-		}
-		return newAircrafts;
+		Fleet f = fleet;
+		return new ArrayList<Aircraft>(Arrays.asList(f.aircrafts).subList(0, f.count));
 	}
 
 	/**
@@ -166,16 +242,102 @@ public class AircraftDAO implements IAircraftDAO
 	@Override
 	public int getNumberOfAircraft() 
 	{
-		return aircrafts.size();
+		return fleet.count;
 	}
 
 	/**
 	 * Unloads all of the aircraft currently loaded, ready to start again if needed
 	 */
 	@Override
-	public void reset() 
+	public synchronized void reset() 
 	{
-		aircrafts.clear();
+		fleet = new Fleet(null);
+	}
+
+	/**
+	 * A Fleet holds the loaded aircraft as parallel arrays
+	 * It is never changed once published, loads copy it and publish the copy
+	 */
+	private static class Fleet
+	{
+		private CodeDictionary typeCodes;
+		private CodeDictionary airportCodes;
+		private HashMap<String,Integer> tailCodes;
+		private Aircraft[] aircrafts;
+		private int[] types;
+		private int[] positions;
+		private int[] seatCounts;
+		private int count;
+
+		/**
+		 * Creates a fleet holding the same aircraft as another
+		 * @param from the fleet to copy, or null for an empty fleet
+		 */
+		Fleet(Fleet from)
+		{
+			if(from == null)
+			{
+				typeCodes = new CodeDictionary();
+				airportCodes = new CodeDictionary();
+				tailCodes = new HashMap<String,Integer>();
+				aircrafts = new Aircraft[16];
+				types = new int[16];
+				positions = new int[16];
+				seatCounts = new int[16];
+				count = 0;
+			}
+			else
+			{
+				typeCodes = new CodeDictionary(from.typeCodes);
+				airportCodes = new CodeDictionary(from.airportCodes);
+				tailCodes = new HashMap<String,Integer>(from.tailCodes);
+				aircrafts = from.aircrafts.clone();
+				types = from.types.clone();
+				positions = from.positions.clone();
+				seatCounts = from.seatCounts.clone();
+				count = from.count;
+			}
+		}
+
+		/**
+		 * Appends an aircraft to the fleet arrays, growing them if they are full
+		 * @param a the aircraft to add
+		 */
+		void add(Aircraft a)
+		{
+			if(count == aircrafts.length)
+			{
+				int capacity = count * 2;
+				aircrafts = Arrays.copyOf(aircrafts, capacity);
+				types = Arrays.copyOf(types, capacity);
+				positions = Arrays.copyOf(positions, capacity);
+				seatCounts = Arrays.copyOf(seatCounts, capacity);
+			}
+			aircrafts[count] = a;
+			types[count] = typeCodes.idOf(a.getTypeCode());
+			positions[count] = airportCodes.idOf(a.getStartingPosition());
+			seatCounts[count] = a.getSeats();
+			tailCodes.putIfAbsent(a.getTailCode().toUpperCase(), count);
+			count++;
+		}
+
+		/**
+		 * Replaces the aircraft with the same tail code, or appends the aircraft if there is none
+		 * @param a the aircraft to put in the fleet
+		 */
+		void put(Aircraft a)
+		{
+			Integer index = tailCodes.get(a.getTailCode().toUpperCase());
+			if(index == null)
+			{
+				add(a);
+				return;
+			}
+			aircrafts[index] = a;
+			types[index] = typeCodes.idOf(a.getTypeCode());
+			positions[index] = airportCodes.idOf(a.getStartingPosition());
+			seatCounts[index] = a.getSeats();
+		}
 	}
 
 }
@@ -0,0 +1,120 @@
+package solution;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The AllocationProfiler records how many times each phase of a scheduling run and each DAO method is entered,
+ * and how many bytes the calling thread allocates inside it, then summarises them in a report
+ * Allocation is measured with the HotSpot thread allocation counter; on JVMs without one only the counts are recorded
+ * Work handed to other threads, such as parallel candidate checks, is not included in the bytes
+ */
+public class AllocationProfiler 
+{
+	private final com.sun.management.ThreadMXBean threads;
+	private final ConcurrentHashMap<String,Totals> totals = new ConcurrentHashMap<String,Totals>();
+
+	public AllocationProfiler()
+	{
+		java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if(bean instanceof com.sun.management.ThreadMXBean && ((com.sun.management.ThreadMXBean)bean).isThreadAllocatedMemorySupported())
+		{
+			threads = (com.sun.management.ThreadMXBean)bean;
+			threads.setThreadAllocatedMemoryEnabled(true);
+		}
+		else
+		{
+			threads = null;
+		}
+	}
+
+	/**
+	 * Starts measuring a phase on the calling thread
+	 * @return the mark to pass to lap() when the phase ends
+	 */
+	public long begin()
+	{
+		return threads == null ? 0 : threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	/**
+	 * Ends a phase on the calling thread, recording what it allocated since the mark
+	 * @param phase the name to record the phase under
+	 * @param mark the mark returned by begin() or the previous lap()
+	 * @return a new mark, so consecutive phases can be measured without calling begin() again
+	 */
+	public long lap(String phase, long mark)
+	{
+		long now = begin();
+		Totals t = totals.computeIfAbsent(phase, k -> new Totals());
+		t.calls.increment();
+		t.bytes.add(now - mark);
+		return now;
+	}
+
+	/**
+	 * Wraps a DAO so that each of its methods is recorded as a phase named after the interface and method
+	 * @param type the DAO interface
+	 * @param dao the DAO to wrap
+	 * @return a DAO that records its calls and then passes them on
+	 */
+	public <T> T wrap(Class<T> type, T dao)
+	{
+		InvocationHandler handler = (proxy, method, args) -> {
+			long mark = begin();
+			try
+			{
+				return method.invoke(dao, args);
+			}
+			catch(InvocationTargetException e)
+			{
+				throw e.getCause();
+			}
+			finally
+			{
+				lap(type.getSimpleName() + "." + method.getName(), mark);
+			}
+		};
+		return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, handler));
+	}
+
+	/**
+	 * Clears everything recorded so far
+	 */
+	public void reset()
+	{
+		totals.clear();
+	}
+
+	/**
+	 * Returns a table of every phase and DAO method recorded, largest allocation first
+	 * DAO methods called during a phase are counted in that phase as well as on their own line
+	 * @return the report
+	 */
+	public String report()
+	{
+		ArrayList<Map.Entry<String,Totals>> entries = new ArrayList<Map.Entry<String,Totals>>(totals.entrySet());
+		entries.sort((a, b) -> Long.compare(b.getValue().bytes.sum(), a.getValue().bytes.sum()));
+		StringBuilder report = new StringBuilder();
+		report.append(String.format("%-50s %12s %16s %12s%n", "Phase", "Calls", "Bytes", "Bytes/call"));
+		for(Map.Entry<String,Totals> e : entries)
+		{
+			long calls = e.getValue().calls.sum();
+			long bytes = e.getValue().bytes.sum();
+			report.append(String.format("%-50s %12d %16s %12s%n", e.getKey(), calls,
+					threads == null ? "n/a" : Long.toString(bytes), threads == null ? "n/a" : Long.toString(bytes / Math.max(1, calls))));
+		}
+		return report.toString();
+	}
+
+	private static class Totals
+	{
+		private final LongAdder calls = new LongAdder();
+		private final LongAdder bytes = new LongAdder();
+	}
+}
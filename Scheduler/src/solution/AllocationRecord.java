@@ -0,0 +1,121 @@
+package solution;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import baseclasses.CabinCrew;
+import baseclasses.Crew;
+import baseclasses.FlightInfo;
+import baseclasses.Schedule;
+
+/**
+ * An AllocationRecord is a detached copy of one completed allocation, naming the aircraft by tail code and the crew by name
+ * so it can be stored, compared with other schedules and used to warm start the Scheduler
+ */
+public class AllocationRecord 
+{
+	private int flightNumber;
+	private LocalDate date;
+	private String tailCode;
+	private String captain;
+	private String firstOfficer;
+	private List<String> cabinCrew;
+
+	public AllocationRecord(int flightNumber, LocalDate date, String tailCode, String captain, String firstOfficer, List<String> cabinCrew)
+	{
+		this.flightNumber = flightNumber;
+		this.date = date;
+		this.tailCode = tailCode;
+		this.captain = captain;
+		this.firstOfficer = firstOfficer;
+		this.cabinCrew = Collections.unmodifiableList(new ArrayList<String>(cabinCrew));
+	}
+
+	/**
+	 * Copies every completed allocation of a schedule
+	 * @param s the schedule to copy
+	 * @return a record for each completed allocation, in the schedule's order
+	 */
+	public static List<AllocationRecord> fromSchedule(Schedule s)
+	{
+		ArrayList<AllocationRecord> records = new ArrayList<AllocationRecord>();
+		for(FlightInfo f : s.getCompletedAllocations())
+		{
+			ArrayList<String> cabinCrew = new ArrayList<String>();
+			for(CabinCrew c : s.getCabinCrewOf(f))
+			{
+				cabinCrew.add(nameOf(c));
+			}
+			records.add(new AllocationRecord(f.getFlight().getFlightNumber(), f.getDepartureDateTime().toLocalDate(),
+					s.getAircraftFor(f).getTailCode(), nameOf(s.getCaptainOf(f)), nameOf(s.getFirstOfficerOf(f)), cabinCrew));
+		}
+		return records;
+	}
+
+	/**
+	 * Returns the name a crew member is recorded under
+	 * @param c the crew member
+	 * @return the crew member's forename and surname separated by a space
+	 */
+	public static String nameOf(Crew c)
+	{
+		return c.getForename() + " " + c.getSurname();
+	}
+
+	/**
+	 * @return a key unique to this record's flight and date
+	 */
+	long getKey()
+	{
+		return FlightKey.of(flightNumber, date);
+	}
+
+	/**
+	 * @return the flight number
+	 */
+	public int getFlightNumber()
+	{
+		return flightNumber;
+	}
+
+	/**
+	 * @return the date of the flight
+	 */
+	public LocalDate getDate()
+	{
+		return date;
+	}
+
+	/**
+	 * @return the tail code of the allocated aircraft
+	 */
+	public String getTailCode()
+	{
+		return tailCode;
+	}
+
+	/**
+	 * @return the name of the allocated captain
+	 */
+	public String getCaptain()
+	{
+		return captain;
+	}
+
+	/**
+	 * @return the name of the allocated first officer
+	 */
+	public String getFirstOfficer()
+	{
+		return firstOfficer;
+	}
+
+	/**
+	 * @return the names of the allocated cabin crew
+	 */
+	public List<String> getCabinCrew()
+	{
+		return cabinCrew;
+	}
+}
@@ -0,0 +1,78 @@
+package solution;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * The CodeDictionary encodes short strings such as airport and type codes as small ints,
+ * so the DAOs can store and compare them as primitives
+ */
+class CodeDictionary
+{
+	private HashMap<String,Integer> ids = new HashMap<String,Integer>();
+	private ArrayList<String> codes = new ArrayList<String>();
+
+	CodeDictionary()
+	{
+	}
+
+	/**
+	 * Creates a dictionary holding the same codes, with the same ids, as another
+	 * @param from the dictionary to copy
+	 */
+	CodeDictionary(CodeDictionary from)
+	{
+		ids.putAll(from.ids);
+		codes.addAll(from.codes);
+	}
+
+	/**
+	 * Returns the id of the specified code, adding it to the dictionary if it is new
+	 * @param code the code to encode
+	 * @return the id of the code
+	 */
+	int idOf(String code)
+	{
+		Integer id = ids.get(code);
+		if(id == null)
+		{
+			id = codes.size();
+			ids.put(code, id);
+			codes.add(code);
+		}
+		return id;
+	}
+
+	/**
+	 * Returns the id of the specified code without adding it
+	 * @param code the code to look up
+	 * @return the id of the code, or -1 if it is not in the dictionary
+	 */
+	int lookup(String code)
+	{
+		Integer id = ids.get(code);
+		if(id == null)
+		{
+			return -1;
+		}
+		return id;
+	}
+
+	/**
+	 * Returns the code with the specified id
+	 * @param id the id to decode
+	 * @return the code with that id
+	 */
+	String codeOf(int id)
+	{
+		return codes.get(id);
+	}
+
+	/**
+	 * Returns the number of codes in the dictionary
+	 * @return the number of codes in the dictionary
+	 */
+	int size()
+	{
+		return codes.size();
+	}
+}
@@ -0,0 +1,126 @@
+package solution;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * The CrewCalendar records the crew each completed flight of a run took, so the crew already flying
+ * at the time of a flight can be taken out of its candidate pools with one bitset operation before any are checked
+ * A crew member on a flight that overlaps in time always has a conflict, so this only ever removes candidates
+ * that hasConflict would reject, and hasConflict still checks the rest for anything else
+ * Positions are those of the run's FlightTimeline and TypeRatingMatrix
+ */
+class CrewCalendar
+{
+	private FlightTimeline timeline;
+	private long longestFlight;
+	private int[] captains;
+	private int[] firstOfficers;
+	private int[][] cabinCrew;
+
+	/**
+	 * Creates an empty calendar for the flights of a run
+	 * @param timeline the flights of the run
+	 */
+	CrewCalendar(FlightTimeline timeline)
+	{
+		this.timeline = timeline;
+		int n = timeline.size();
+		captains = new int[n];
+		firstOfficers = new int[n];
+		cabinCrew = new int[n][];
+		Arrays.fill(captains, -1);
+		Arrays.fill(firstOfficers, -1);
+		for(int i = 0; i < n; i++)
+		{
+			longestFlight = Math.max(longestFlight, timeline.getArrival(i) - timeline.getDeparture(i));
+		}
+	}
+
+	/**
+	 * Records the crew of a completed flight
+	 * @param flight the position of the flight in the timeline
+	 * @param captain the position of the captain in the matrix's pilots, or -1 for none
+	 * @param firstOfficer the position of the first officer in the matrix's pilots, or -1 for none
+	 * @param cabin the positions of the cabin crew in the matrix's cabin crew
+	 */
+	void allocate(int flight, int captain, int firstOfficer, int[] cabin)
+	{
+		captains[flight] = captain;
+		firstOfficers[flight] = firstOfficer;
+		cabinCrew[flight] = cabin;
+	}
+
+	/**
+	 * Returns the pilots already flying while the specified flight is in the air
+	 * @param flight the position of the flight in the timeline
+	 * @return a new bitset of positions in the matrix's pilots
+	 */
+	BitSet getBusyPilots(int flight)
+	{
+		BitSet busy = new BitSet();
+		for(int j = firstOverlapping(flight); j < timeline.size() && timeline.getDeparture(j) < timeline.getArrival(flight); j++)
+		{
+			if(overlaps(j, flight))
+			{
+				if(captains[j] != -1)
+				{
+					busy.set(captains[j]);
+				}
+				if(firstOfficers[j] != -1)
+				{
+					busy.set(firstOfficers[j]);
+				}
+			}
+		}
+		return busy;
+	}
+
+	/**
+	 * Returns the cabin crew already flying while the specified flight is in the air
+	 * @param flight the position of the flight in the timeline
+	 * @return a new bitset of positions in the matrix's cabin crew
+	 */
+	BitSet getBusyCabinCrew(int flight)
+	{
+		BitSet busy = new BitSet();
+		for(int j = firstOverlapping(flight); j < timeline.size() && timeline.getDeparture(j) < timeline.getArrival(flight); j++)
+		{
+			if(overlaps(j, flight) && cabinCrew[j] != null)
+			{
+				for(int c : cabinCrew[j])
+				{
+					busy.set(c);
+				}
+			}
+		}
+		return busy;
+	}
+
+	private boolean overlaps(int j, int flight)
+	{
+		return j != flight && timeline.getArrival(j) > timeline.getDeparture(flight);
+	}
+
+	/**
+	 * The timeline is sorted by departure, so no flight before this one can still be in the air when the specified flight departs
+	 */
+	private int firstOverlapping(int flight)
+	{
+		long earliest = timeline.getDeparture(flight) - longestFlight;
+		int low = 0;
+		int high = flight;
+		while(low < high)
+		{
+			int mid = (low + high) >>> 1;
+			if(timeline.getDeparture(mid) <= earliest)
+			{
+				low = mid + 1;
+			}
+			else
+			{
+				high = mid;
+			}
+		}
+		return low;
+	}
+}
@@ -4,6 +4,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import org.json.*;
 import java.io.IOException;
@@ -18,6 +19,9 @@ import baseclasses.Pilot;
 /**
  * The CrewDAO is responsible for loading data from JSON-based crew files 
  * It contains various methods to help the scheduler find the right pilots and cabin crew
+ * Pilots and cabin crew are held in parallel arrays, with home bases encoded as ints and type ratings as bitmasks,
+ * so the finders are tight loops over primitives that only touch the crew objects they return
+ * Loads build a new Roster and publish it in one step, so any number of threads can read without locking
  */
 public class CrewDAO implements ICrewDAO 
 {
@@ -29,11 +33,67 @@ public class CrewDAO implements ICrewDAO
 	 * @throws DataLoadingException if anything goes wrong. The exception's "cause" indicates the underlying exception
 	 */
 	
-	private ArrayList<Crew> crewMembers = new ArrayList<Crew>();
+	private volatile Roster roster = new Roster(null);
+	private volatile DataValidator validator;
+
+	/**
+	 * Sets the validator that checks each crew member as they are loaded
+	 * With no validator, the first bad crew member fails the whole load as before
+	 * @param validator the validator to report problems to, or null for none
+	 */
+	public void setValidator(DataValidator validator)
+	{
+		this.validator = validator;
+	}
+
+	DataValidator getValidator()
+	{
+		return validator;
+	}
+
+	/**
+	 * Returns an object that is replaced by every load and reset, so the same object means the same crew
+	 * @return the current version of the roster
+	 */
+	Object getVersion()
+	{
+		return roster;
+	}
+
+	/**
+	 * Adds the crew of DAOs loaded separately to this one, publishing them all in one step
+	 * Crew have no key, so every crew member of every DAO is kept, in the order given
+	 * @param shards the DAOs to merge, in order
+	 */
+	synchronized void merge(List<CrewDAO> shards)
+	{
+		Roster next = new Roster(roster);
+		for(CrewDAO shard : shards)
+		{
+			Roster r = shard.roster;
+			//each shard numbered its types as it found them, so the ratings are renumbered into this roster's types
+			int[] typeMap = new int[r.typeCodes.size()];
+			for(int t = 0; t < typeMap.length; t++)
+			{
+				typeMap[t] = next.typeCodes.idOf(r.typeCodes.codeOf(t));
+			}
+			for(int i = 0; i < r.pilotCount; i++)
+			{
+				next.addPilot(r.pilots[i], remapRatings(r.pilotRatings[i], r.pilots[i], r.typeCodes, typeMap));
+			}
+			for(int i = 0; i < r.cabinCount; i++)
+			{
+				next.addCabinCrew(r.cabinCrew[i], remapRatings(r.cabinRatings[i], r.cabinCrew[i], r.typeCodes, typeMap));
+			}
+		}
+		roster = next;
+	}
 	
 	@Override
-	public void loadCrewData(Path p) throws DataLoadingException
+	public synchronized void loadCrewData(Path p) throws DataLoadingException
 	{	
+		Roster next = new Roster(roster);
+		DataValidator check = validator;
 		try 
 		{
 			BufferedReader br = Files.newBufferedReader(p);
@@ -49,37 +109,90 @@ public class CrewDAO implements ICrewDAO
 			for(int i=0; i < pilotsRoot.length(); i++)
 			{
 				Pilot crewMember = new Pilot();
-				JSONObject crewMemberJson =  pilotsRoot.getJSONObject(i);
-				crewMember.setForename(crewMemberJson.getString("forename")); 
-				crewMember.setSurname(crewMemberJson.getString("surname"));
-				crewMember.setHomeBase(crewMemberJson.getString("homebase"));
-				crewMember.setRank(Pilot.Rank.valueOf(crewMemberJson.getString("rank").toUpperCase()));
-				JSONArray typeRatings = crewMemberJson.getJSONArray("typeRatings");
-				for(int j = 0; j < typeRatings.length();j++) 
+				long ratings;
+				try
+				{
+					JSONObject crewMemberJson =  pilotsRoot.getJSONObject(i);
+					crewMember.setForename(crewMemberJson.getString("forename")); 
+					crewMember.setSurname(crewMemberJson.getString("surname"));
+					crewMember.setHomeBase(crewMemberJson.getString("homebase"));
+					crewMember.setRank(Pilot.Rank.valueOf(crewMemberJson.getString("rank").toUpperCase()));
+					ratings = loadTypeRatings(crewMember, crewMemberJson, next);
+				}
+				catch(RuntimeException e)
 				{
-					crewMember.setQualifiedFor(typeRatings.getString(j));
+					if(check == null)
+					{
+						throw e;
+					}
+					check.report(p, "pilots[" + i + "]", e.toString());
+					continue;
 				}
-				crewMembers.add(crewMember);
+				if(check != null)
+				{
+					referCodes(check, crewMember, pilotsRoot.getJSONObject(i), p, "pilots[" + i + "]");
+				}
+				next.addPilot(crewMember, ratings);
 			}
 			for(int i=0; i < cabinRoot.length(); i++)
 			{
 				CabinCrew crewMember = new CabinCrew();
-				JSONObject crewMemberJson =  cabinRoot.getJSONObject(i);
-				crewMember.setForename(crewMemberJson.getString("forename")); 
-				crewMember.setSurname(crewMemberJson.getString("surname"));
-				crewMember.setHomeBase(crewMemberJson.getString("homebase"));
-				JSONArray typeRatings = crewMemberJson.getJSONArray("typeRatings");
-				for(int j = 0; j < typeRatings.length();j++) 
+				long ratings;
+				try
+				{
+					JSONObject crewMemberJson =  cabinRoot.getJSONObject(i);
+					crewMember.setForename(crewMemberJson.getString("forename")); 
+					crewMember.setSurname(crewMemberJson.getString("surname"));
+					crewMember.setHomeBase(crewMemberJson.getString("homebase"));
+					ratings = loadTypeRatings(crewMember, crewMemberJson, next);
+				}
+				catch(RuntimeException e)
 				{
-					crewMember.setQualifiedFor(typeRatings.getString(j));
+					if(check == null)
+					{
+						throw e;
+					}
+					check.report(p, "cabincrew[" + i + "]", e.toString());
+					continue;
 				}
-				crewMembers.add(crewMember);
+				if(check != null)
+				{
+					referCodes(check, crewMember, cabinRoot.getJSONObject(i), p, "cabincrew[" + i + "]");
+				}
+				next.addCabinCrew(crewMember, ratings);
 			}
 		}
+		catch (DataValidationException e)
+		{
+			throw e;
+		}
 		catch (Exception e) 
 		{
 			throw new DataLoadingException(e);
 		}
+		roster = next;
+	}
+
+	private static long loadTypeRatings(Crew crewMember, JSONObject crewMemberJson, Roster next)
+	{
+		JSONArray typeRatings = crewMemberJson.getJSONArray("typeRatings");
+		long ratings = 0;
+		for(int j = 0; j < typeRatings.length();j++) 
+		{
+			crewMember.setQualifiedFor(typeRatings.getString(j));
+			ratings |= ratingBit(next.typeCodes.idOf(typeRatings.getString(j)));
+		}
+		return ratings;
+	}
+
+	private static void referCodes(DataValidator check, Crew crewMember, JSONObject crewMemberJson, Path p, String location)
+	{
+		check.referAirport(crewMember.getHomeBase(), p, location);
+		JSONArray typeRatings = crewMemberJson.getJSONArray("typeRatings");
+		for(int j = 0; j < typeRatings.length();j++) 
+		{
+			check.referTypeCode(typeRatings.getString(j), p, location);
+		}
 	}
 	
 	
@@ -92,15 +205,14 @@ public class CrewDAO implements ICrewDAO
 	@Override
 	public List<CabinCrew> findCabinCrewByHomeBase(String airportCode) 
 	{
+		Roster r = roster;
 		ArrayList<CabinCrew> homebaseCrew = new ArrayList<CabinCrew>();
-		for(int i=0; i < crewMembers.size(); i++)
+		int base = r.airportCodes.lookup(airportCode);
+		for(int i=0; base != -1 && i < r.cabinCount; i++)
 		{
-			if(crewMembers.get(i) instanceof CabinCrew)
+			if(r.cabinBases[i] == base)
 			{
-				if(crewMembers.get(i).getHomeBase().equals(airportCode))
-				{
-					homebaseCrew.add((CabinCrew)crewMembers.get(i));
-				}
+				homebaseCrew.add(r.cabinCrew[i]);
 			}
 		}
 		return homebaseCrew;
@@ -115,15 +227,15 @@ public class CrewDAO implements ICrewDAO
 	@Override
 	public List<CabinCrew> findCabinCrewByHomeBaseAndTypeRating(String typeCode, String airportCode) 
 	{
+		Roster r = roster;
 		ArrayList<CabinCrew> homebaseCrew = new ArrayList<CabinCrew>();
-		for(int i=0; i < crewMembers.size(); i++)
+		int base = r.airportCodes.lookup(airportCode);
+		int type = r.typeCodes.lookup(typeCode);
+		for(int i=0; base != -1 && type != -1 && i < r.cabinCount; i++)
 		{
-			if(crewMembers.get(i) instanceof CabinCrew)
+			if(r.cabinBases[i] == base && isQualified(r.cabinRatings[i], r.cabinCrew[i], type, typeCode))
 			{
-				if(crewMembers.get(i).getHomeBase().equals(airportCode)&& crewMembers.get(i).isQualifiedFor(typeCode))
-				{
-					homebaseCrew.add((CabinCrew)crewMembers.get(i));
-				}
+				homebaseCrew.add(r.cabinCrew[i]);
 			}
 		}
 		return homebaseCrew;
@@ -137,15 +249,14 @@ public class CrewDAO implements ICrewDAO
 	@Override
 	public List<CabinCrew> findCabinCrewByTypeRating(String typeCode) 
 	{
+		Roster r = roster;
 		ArrayList<CabinCrew> typeCrew = new ArrayList<CabinCrew>();
-		for(int i=0; i < crewMembers.size(); i++)
+		int type = r.typeCodes.lookup(typeCode);
+		for(int i=0; type != -1 && i < r.cabinCount; i++)
 		{
-			if(crewMembers.get(i) instanceof CabinCrew)
+			if(isQualified(r.cabinRatings[i], r.cabinCrew[i], type, typeCode))
 			{
-				if(crewMembers.get(i).isQualifiedFor(typeCode))
-				{
-					typeCrew.add((CabinCrew)crewMembers.get(i));
-				}
+				typeCrew.add(r.cabinCrew[i]);
 			}
 		}
 		return typeCrew;
@@ -159,15 +270,14 @@ public class CrewDAO implements ICrewDAO
 	@Override
 	public List<Pilot> findPilotsByHomeBase(String airportCode) 
 	{
+		Roster r = roster;
 		ArrayList<Pilot> homebasePilot = new ArrayList<Pilot>();
-		for(int i=0; i < crewMembers.size(); i++)
+		int base = r.airportCodes.lookup(airportCode);
+		for(int i=0; base != -1 && i < r.pilotCount; i++)
 		{
-			if(crewMembers.get(i) instanceof Pilot)
+			if(r.pilotBases[i] == base)
 			{
-				if(crewMembers.get(i).getHomeBase().equals(airportCode))
-				{
-					homebasePilot.add((Pilot)crewMembers.get(i));
-				}
+				homebasePilot.add(r.pilots[i]);
 			}
 		}
 		return homebasePilot;
@@ -182,15 +292,15 @@ public class CrewDAO implements ICrewDAO
 	@Override
 	public List<Pilot> findPilotsByHomeBaseAndTypeRating(String typeCode, String airportCode) 
 	{
+		Roster r = roster;
 		ArrayList<Pilot> homebasePilot = new ArrayList<Pilot>();
-		for(int i=0; i < crewMembers.size(); i++)
+		int base = r.airportCodes.lookup(airportCode);
+		int type = r.typeCodes.lookup(typeCode);
+		for(int i=0; base != -1 && type != -1 && i < r.pilotCount; i++)
 		{
-			if(crewMembers.get(i) instanceof Pilot)
+			if(r.pilotBases[i] == base && isQualified(r.pilotRatings[i], r.pilots[i], type, typeCode))
 			{
-				if(crewMembers.get(i).getHomeBase().equals(airportCode) && crewMembers.get(i).isQualifiedFor(typeCode))
-				{
-					homebasePilot.add((Pilot)crewMembers.get(i));
-				}
+				homebasePilot.add(r.pilots[i]);
 			}
 		}
 		return homebasePilot;
@@ -204,15 +314,14 @@ public class CrewDAO implements ICrewDAO
 	@Override
 	public List<Pilot> findPilotsByTypeRating(String typeCode) 
 	{
+		Roster r = roster;
 		ArrayList<Pilot> typePilot = new ArrayList<Pilot>();
-		for(int i=0; i < crewMembers.size(); i++)
+		int type = r.typeCodes.lookup(typeCode);
+		for(int i=0; type != -1 && i < r.pilotCount; i++)
 		{
-			if(crewMembers.get(i) instanceof Pilot)
+			if(isQualified(r.pilotRatings[i], r.pilots[i], type, typeCode))
 			{
-				if(crewMembers.get(i).isQualifiedFor(typeCode))
-				{
-					typePilot.add((Pilot)crewMembers.get(i));
-				}
+				typePilot.add(r.pilots[i]);
 			}
 		}
 		return typePilot;
@@ -225,15 +334,8 @@ public class CrewDAO implements ICrewDAO
 	@Override
 	public List<CabinCrew> getAllCabinCrew() 
 	{
-		ArrayList<CabinCrew> crew = new ArrayList<CabinCrew>();
-		for(int i=0; i < crewMembers.size(); i++)
-		{
-			if(crewMembers.get(i) instanceof CabinCrew)
-			{
-				crew.add((CabinCrew)crewMembers.get(i));
-			}
-		}
-		return crew;
+		Roster r = roster;
+		return new ArrayList<CabinCrew>(Arrays.asList(r.cabinCrew).subList(0, r.cabinCount));
 	}
 
 	/**
@@ -243,7 +345,7 @@ public class CrewDAO implements ICrewDAO
 	@Override
 	public List<Crew> getAllCrew() 
 	{
-		return crewMembers;
+		return new ArrayList<Crew>(roster.crewMembers);
 	}
 
 	/**
@@ -253,29 +355,14 @@ public class CrewDAO implements ICrewDAO
 	@Override
 	public List<Pilot> getAllPilots() 
 	{
-		ArrayList<Pilot> pilots = new ArrayList<Pilot>();
-		for(int i = 0; i < crewMembers.size(); i++)
-		{
-			if(crewMembers.get(i) instanceof Pilot)
-			{
-				pilots.add((Pilot)crewMembers.get(i));
-			}
-		}
-		return pilots;
+		Roster r = roster;
+		return new ArrayList<Pilot>(Arrays.asList(r.pilots).subList(0, r.pilotCount));
 	}
 
 	@Override
 	public int getNumberOfCabinCrew() 
 	{
-		int crewNumber = 0;
-		for(int i = 0; i < crewMembers.size(); i++)
-		{
-			if(crewMembers.get(i) instanceof CabinCrew)
-			{
-				crewNumber++;
-			}
-		}
-		return crewNumber;
+		return roster.cabinCount;
 	}
 
 	/**
@@ -285,24 +372,142 @@ public class CrewDAO implements ICrewDAO
 	@Override
 	public int getNumberOfPilots() 
 	{
-		int pilotNumber = 0;
-		for(int i=0; i < crewMembers.size(); i++)
+		return roster.pilotCount;
+	}
+
+	/**
+	 * Unloads all of the crew currently loaded, ready to start again if needed
+	 */
+	@Override
+	public synchronized void reset() 
+	{
+		roster = new Roster(null);
+	}
+
+	/**
+	 * A Roster holds the loaded pilots and cabin crew as parallel arrays
+	 * It is never changed once published, loads copy it and publish the copy
+	 */
+	private static class Roster
+	{
+		private ArrayList<Crew> crewMembers;
+		private CodeDictionary airportCodes;
+		private CodeDictionary typeCodes;
+		private Pilot[] pilots;
+		private int[] pilotBases;
+		private long[] pilotRatings;
+		private int pilotCount;
+		private CabinCrew[] cabinCrew;
+		private int[] cabinBases;
+		private long[] cabinRatings;
+		private int cabinCount;
+
+		/**
+		 * Creates a roster holding the same crew as another
+		 * @param from the roster to copy, or null for an empty roster
+		 */
+		Roster(Roster from)
+		{
+			if(from == null)
+			{
+				crewMembers = new ArrayList<Crew>();
+				airportCodes = new CodeDictionary();
+				typeCodes = new CodeDictionary();
+				pilots = new Pilot[16];
+				pilotBases = new int[16];
+				pilotRatings = new long[16];
+				cabinCrew = new CabinCrew[16];
+				cabinBases = new int[16];
+				cabinRatings = new long[16];
+			}
+			else
+			{
+				crewMembers = new ArrayList<Crew>(from.crewMembers);
+				airportCodes = new CodeDictionary(from.airportCodes);
+				typeCodes = new CodeDictionary(from.typeCodes);
+				pilots = from.pilots.clone();
+				pilotBases = from.pilotBases.clone();
+				pilotRatings = from.pilotRatings.clone();
+				pilotCount = from.pilotCount;
+				cabinCrew = from.cabinCrew.clone();
+				cabinBases = from.cabinBases.clone();
+				cabinRatings = from.cabinRatings.clone();
+				cabinCount = from.cabinCount;
+			}
+		}
+
+		/**
+		 * Appends a pilot to the pilot arrays, growing them if they are full
+		 * @param p the pilot to add
+		 * @param ratings the bitmask of type ratings the pilot holds
+		 */
+		void addPilot(Pilot p, long ratings)
 		{
-			if(crewMembers.get(i) instanceof Pilot)
+			if(pilotCount == pilots.length)
 			{
-				pilotNumber++;
+				pilots = Arrays.copyOf(pilots, pilotCount * 2);
+				pilotBases = Arrays.copyOf(pilotBases, pilotCount * 2);
+				pilotRatings = Arrays.copyOf(pilotRatings, pilotCount * 2);
 			}
+			pilots[pilotCount] = p;
+			pilotBases[pilotCount] = airportCodes.idOf(p.getHomeBase());
+			pilotRatings[pilotCount] = ratings;
+			pilotCount++;
+			crewMembers.add(p);
+		}
+
+		/**
+		 * Appends a cabin crew member to the cabin crew arrays, growing them if they are full
+		 * @param c the cabin crew member to add
+		 * @param ratings the bitmask of type ratings the cabin crew member holds
+		 */
+		void addCabinCrew(CabinCrew c, long ratings)
+		{
+			if(cabinCount == cabinCrew.length)
+			{
+				cabinCrew = Arrays.copyOf(cabinCrew, cabinCount * 2);
+				cabinBases = Arrays.copyOf(cabinBases, cabinCount * 2);
+				cabinRatings = Arrays.copyOf(cabinRatings, cabinCount * 2);
+			}
+			cabinCrew[cabinCount] = c;
+			cabinBases[cabinCount] = airportCodes.idOf(c.getHomeBase());
+			cabinRatings[cabinCount] = ratings;
+			cabinCount++;
+			crewMembers.add(c);
 		}
-		return pilotNumber;
 	}
 
 	/**
-	 * Unloads all of the crew currently loaded, ready to start again if needed
+	 * Returns the bit for a type id in a ratings bitmask
+	 * Type ids beyond the width of the mask have no bit and are checked against the crew object instead
+	 * @param type the type id
+	 * @return the bit for the type, or 0 if it does not fit in the mask
 	 */
-	@Override
-	public void reset() 
+	private static long ratingBit(int type)
+	{
+		return type < Long.SIZE ? 1L << type : 0;
+	}
+
+	private static long remapRatings(long ratings, Crew member, CodeDictionary from, int[] typeMap)
 	{
-		crewMembers.clear();
+		long remapped = 0;
+		for(int t = 0; t < typeMap.length; t++)
+		{
+			if(isQualified(ratings, member, t, from.codeOf(t)))
+			{
+				remapped |= ratingBit(typeMap[t]);
+			}
+		}
+		return remapped;
+	}
+
+	private static boolean isQualified(long ratings, Crew member, int type, String typeCode)
+	{
+		if(type < Long.SIZE)
+		{
+			return (ratings & ratingBit(type)) != 0;
+		}
+		return member.isQualifiedFor(typeCode);
 	}
 
 }
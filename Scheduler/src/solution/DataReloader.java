@@ -0,0 +1,221 @@
+package solution;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+import baseclasses.DataLoadingException;
+
+/**
+ * The DataReloader loads the four data files and then watches them for changes
+ * A changed file is parsed into a fresh DAO in the background and swapped into a new DataSnapshot in one step,
+ * so runs that took the previous snapshot carry on with a consistent view while the data is refreshed
+ */
+public class DataReloader implements Closeable 
+{
+	private Path aircraftFile;
+	private Path crewFile;
+	private Path routeFile;
+	private Path passengerFile;
+	private AtomicReference<DataSnapshot> current = new AtomicReference<DataSnapshot>();
+	private Set<Path> pending = ConcurrentHashMap.newKeySet();
+	private ExecutorService loader = Executors.newSingleThreadExecutor();
+	private WatchService watcher;
+	private Thread watchThread;
+	private volatile DataLoadingException lastFailure;
+
+	/**
+	 * Creates a reloader for the specified data files
+	 * @param aircraftFile the CSV file of aircraft
+	 * @param crewFile the JSON file of crew
+	 * @param routeFile the XML file of routes
+	 * @param passengerFile the SQLite database of passenger numbers
+	 */
+	public DataReloader(Path aircraftFile, Path crewFile, Path routeFile, Path passengerFile)
+	{
+		this.aircraftFile = aircraftFile.toAbsolutePath().normalize();
+		this.crewFile = crewFile.toAbsolutePath().normalize();
+		this.routeFile = routeFile.toAbsolutePath().normalize();
+		this.passengerFile = passengerFile.toAbsolutePath().normalize();
+	}
+
+	/**
+	 * Loads all four data files into a new snapshot, replacing the current one
+	 * @return the new snapshot
+	 * @throws DataLoadingException if any of the files cannot be loaded, in which case the current snapshot is kept
+	 */
+	public DataSnapshot load() throws DataLoadingException
+	{
+		DataSnapshot loaded = new DataSnapshot(loadAircraft(), loadCrew(), loadRoutes(), loadPassengers());
+		current.set(loaded);
+		return loaded;
+	}
+
+	/**
+	 * Returns the most recently loaded snapshot, which never changes once returned
+	 * @return the current snapshot, or null if nothing has been loaded yet
+	 */
+	public DataSnapshot getSnapshot()
+	{
+		return current.get();
+	}
+
+	/**
+	 * Returns the exception from the last background reload that failed
+	 * @return the last reload failure, or null if every reload so far has succeeded
+	 */
+	public DataLoadingException getLastFailure()
+	{
+		return lastFailure;
+	}
+
+	/**
+	 * Starts watching the directories of the data files, reloading any of the files when it changes
+	 * @throws IOException if the directories cannot be watched
+	 */
+	public synchronized void start() throws IOException
+	{
+		if(watcher != null)
+		{
+			return;
+		}
+		watcher = FileSystems.getDefault().newWatchService();
+		HashSet<Path> directories = new HashSet<Path>();
+		directories.add(aircraftFile.getParent());
+		directories.add(crewFile.getParent());
+		directories.add(routeFile.getParent());
+		directories.add(passengerFile.getParent());
+		for(Path directory : directories)
+		{
+			directory.register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+		}
+		watchThread = new Thread(this::watch, "data-reloader");
+		watchThread.setDaemon(true);
+		watchThread.start();
+	}
+
+	/**
+	 * Stops watching the data files, the current snapshot stays available
+	 */
+	@Override
+	public synchronized void close() throws IOException
+	{
+		loader.shutdownNow();
+		if(watcher != null)
+		{
+			watcher.close();
+		}
+	}
+
+	private void watch()
+	{
+		try
+		{
+			while(true)
+			{
+				WatchKey key = watcher.take();
+				Path directory = (Path)key.watchable();
+				for(WatchEvent<?> event : key.pollEvents())
+				{
+					if(event.kind() == StandardWatchEventKinds.OVERFLOW)
+					{
+						continue;
+					}
+					Path changed = directory.resolve((Path)event.context()).normalize();
+					//editors often write a file in several steps, only one reload is queued until it starts
+					if(isWatched(changed) && pending.add(changed))
+					{
+						loader.submit(() -> reload(changed));
+					}
+				}
+				key.reset();
+			}
+		}
+		catch(InterruptedException | ClosedWatchServiceException e)
+		{
+			//the reloader has been closed
+		}
+	}
+
+	private boolean isWatched(Path p)
+	{
+		return p.equals(aircraftFile) || p.equals(crewFile) || p.equals(routeFile) || p.equals(passengerFile);
+	}
+
+	private void reload(Path changed)
+	{
+		pending.remove(changed);
+		if(current.get() == null)
+		{
+			return;
+		}
+		try
+		{
+			if(changed.equals(aircraftFile))
+			{
+				AircraftDAO aircraft = loadAircraft();
+				current.updateAndGet(snapshot -> snapshot.withAircraft(aircraft));
+			}
+			else if(changed.equals(crewFile))
+			{
+				CrewDAO crew = loadCrew();
+				current.updateAndGet(snapshot -> snapshot.withCrew(crew));
+			}
+			else if(changed.equals(routeFile))
+			{
+				RouteDAO routes = loadRoutes();
+				current.updateAndGet(snapshot -> snapshot.withRoutes(routes));
+			}
+			else if(changed.equals(passengerFile))
+			{
+				PassengerNumbersDAO passengers = loadPassengers();
+				current.updateAndGet(snapshot -> snapshot.withPassengers(passengers));
+			}
+		}
+		catch(DataLoadingException dle)
+		{
+			//a file caught half-written will be reloaded again when the write finishes,
+			//until then the previous data is kept and the failure is left for getLastFailure()
+			lastFailure = dle;
+		}
+	}
+
+	private AircraftDAO loadAircraft() throws DataLoadingException
+	{
+		AircraftDAO aircraft = new AircraftDAO();
+		aircraft.loadAircraftData(aircraftFile);
+		return aircraft;
+	}
+
+	private CrewDAO loadCrew() throws DataLoadingException
+	{
+		CrewDAO crew = new CrewDAO();
+		crew.loadCrewData(crewFile);
+		return crew;
+	}
+
+	private RouteDAO loadRoutes() throws DataLoadingException
+	{
+		RouteDAO routes = new RouteDAO();
+		routes.loadRouteData(routeFile);
+		return routes;
+	}
+
+	private PassengerNumbersDAO loadPassengers() throws DataLoadingException
+	{
+		PassengerNumbersDAO passengers = new PassengerNumbersDAO();
+		passengers.loadPassengerNumbersData(passengerFile);
+		return passengers;
+	}
+}
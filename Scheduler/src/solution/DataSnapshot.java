@@ -0,0 +1,77 @@
+package solution;
+import baseclasses.IAircraftDAO;
+import baseclasses.ICrewDAO;
+import baseclasses.IPassengerNumbersDAO;
+import baseclasses.IRouteDAO;
+
+/**
+ * A DataSnapshot is an immutable set of the four loaded DAOs
+ * A scheduling run takes one snapshot and uses it throughout, so a reload never gives it a half-loaded view
+ */
+public final class DataSnapshot 
+{
+	private final IAircraftDAO aircraft;
+	private final ICrewDAO crew;
+	private final IRouteDAO routes;
+	private final IPassengerNumbersDAO passengers;
+
+	public DataSnapshot(IAircraftDAO aircraft, ICrewDAO crew, IRouteDAO routes, IPassengerNumbersDAO passengers)
+	{
+		this.aircraft = aircraft;
+		this.crew = crew;
+		this.routes = routes;
+		this.passengers = passengers;
+	}
+
+	/**
+	 * @return the loaded aircraft
+	 */
+	public IAircraftDAO getAircraft()
+	{
+		return aircraft;
+	}
+
+	/**
+	 * @return the loaded crew
+	 */
+	public ICrewDAO getCrew()
+	{
+		return crew;
+	}
+
+	/**
+	 * @return the loaded routes
+	 */
+	public IRouteDAO getRoutes()
+	{
+		return routes;
+	}
+
+	/**
+	 * @return the loaded passenger numbers
+	 */
+	public IPassengerNumbersDAO getPassengers()
+	{
+		return passengers;
+	}
+
+	DataSnapshot withAircraft(IAircraftDAO aircraft)
+	{
+		return new DataSnapshot(aircraft, crew, routes, passengers);
+	}
+
+	DataSnapshot withCrew(ICrewDAO crew)
+	{
+		return new DataSnapshot(aircraft, crew, routes, passengers);
+	}
+
+	DataSnapshot withRoutes(IRouteDAO routes)
+	{
+		return new DataSnapshot(aircraft, crew, routes, passengers);
+	}
+
+	DataSnapshot withPassengers(IPassengerNumbersDAO passengers)
+	{
+		return new DataSnapshot(aircraft, crew, routes, passengers);
+	}
+}
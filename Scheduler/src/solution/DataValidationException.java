@@ -0,0 +1,36 @@
+package solution;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import baseclasses.DataLoadingException;
+
+/**
+ * A DataValidationException reports every problem a DataValidator found in the loaded data
+ */
+public class DataValidationException extends DataLoadingException 
+{
+	private static final long serialVersionUID = 1L;
+
+	private List<String> errors;
+
+	public DataValidationException(List<String> errors)
+	{
+		super();
+		this.errors = Collections.unmodifiableList(new ArrayList<String>(errors));
+	}
+
+	/**
+	 * @return every problem found, in the order they were found
+	 */
+	public List<String> getErrors()
+	{
+		return errors;
+	}
+
+	@Override
+	public String getMessage()
+	{
+		return errors.size() + " problem(s) found in the data:" + System.lineSeparator() + String.join(System.lineSeparator(), errors);
+	}
+}
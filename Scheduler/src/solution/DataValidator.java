@@ -0,0 +1,158 @@
+package solution;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The DataValidator checks data as the DAOs stream over their files, so each file is still only read once
+ * Each DAO reports the rows it cannot parse and the codes it refers to, and once everything is loaded
+ * checkReferences() reports the airport and type codes that nothing declared
+ * In FAIL_FAST mode the first problem stops the load; in COLLECT_ALL mode bad rows are skipped and every problem is kept
+ */
+public class DataValidator 
+{
+	/**
+	 * What a DataValidator does when it finds a problem
+	 */
+	public enum Mode 
+	{
+		/** Throw on the first problem */
+		FAIL_FAST,
+		/** Skip the problem row and carry on, reporting everything together */
+		COLLECT_ALL
+	}
+
+	private Mode mode;
+	private List<String> errors = Collections.synchronizedList(new ArrayList<String>());
+	private HashSet<String> airports = new HashSet<String>();
+	private HashSet<String> typeCodes = new HashSet<String>();
+	private LinkedHashMap<String,String> airportReferences = new LinkedHashMap<String,String>();
+	private LinkedHashMap<String,String> typeReferences = new LinkedHashMap<String,String>();
+
+	public DataValidator(Mode mode)
+	{
+		this.mode = mode;
+	}
+
+	/**
+	 * Records a problem with a row of a file
+	 * @param source the file the row came from
+	 * @param location where in the file the row is, e.g. "line 4"
+	 * @param message what is wrong with the row
+	 * @throws DataValidationException straight away in FAIL_FAST mode
+	 */
+	public void report(Path source, String location, String message) throws DataValidationException
+	{
+		errors.add(source.getFileName() + " " + location + ": " + message);
+		if(mode == Mode.FAIL_FAST)
+		{
+			throw new DataValidationException(errors);
+		}
+	}
+
+	/**
+	 * Records an airport that the routes fly to or from
+	 * @param airportCode the three letter airport code
+	 */
+	public synchronized void declareAirport(String airportCode)
+	{
+		airports.add(airportCode);
+	}
+
+	/**
+	 * Records an aircraft type in the fleet
+	 * @param typeCode the type code
+	 */
+	public synchronized void declareTypeCode(String typeCode)
+	{
+		typeCodes.add(typeCode);
+	}
+
+	/**
+	 * Records a reference to an airport, to be checked by checkReferences()
+	 * Only the first place each code is referred to is kept
+	 * @param airportCode the three letter airport code referred to
+	 * @param source the file that refers to it
+	 * @param location where in the file it is referred to
+	 */
+	public synchronized void referAirport(String airportCode, Path source, String location)
+	{
+		airportReferences.putIfAbsent(airportCode, source.getFileName() + " " + location);
+	}
+
+	/**
+	 * Records a reference to an aircraft type, to be checked by checkReferences()
+	 * Only the first place each code is referred to is kept
+	 * @param typeCode the type code referred to
+	 * @param source the file that refers to it
+	 * @param location where in the file it is referred to
+	 */
+	public synchronized void referTypeCode(String typeCode, Path source, String location)
+	{
+		typeReferences.putIfAbsent(typeCode, source.getFileName() + " " + location);
+	}
+
+	/**
+	 * Reports every airport that no route flies to or from, and every type code that is not in the fleet
+	 * Call this once all of the files have been loaded
+	 * @throws DataValidationException on the first unknown code in FAIL_FAST mode
+	 */
+	public synchronized void checkReferences() throws DataValidationException
+	{
+		for(Map.Entry<String,String> reference : airportReferences.entrySet())
+		{
+			if(!airports.contains(reference.getKey()))
+			{
+				reportReference(reference.getValue() + ": unknown airport " + reference.getKey());
+			}
+		}
+		for(Map.Entry<String,String> reference : typeReferences.entrySet())
+		{
+			if(!typeCodes.contains(reference.getKey()))
+			{
+				reportReference(reference.getValue() + ": no aircraft of type " + reference.getKey() + " in the fleet");
+			}
+		}
+	}
+
+	/**
+	 * @return every problem found so far
+	 */
+	public List<String> getErrors()
+	{
+		return new ArrayList<String>(errors);
+	}
+
+	/**
+	 * @return true if any problem has been found
+	 */
+	public boolean hasErrors()
+	{
+		return !errors.isEmpty();
+	}
+
+	/**
+	 * Throws if any problem has been found, reporting them all at once
+	 * @throws DataValidationException if any problem has been found
+	 */
+	public void throwIfInvalid() throws DataValidationException
+	{
+		if(!errors.isEmpty())
+		{
+			throw new DataValidationException(errors);
+		}
+	}
+
+	private void reportReference(String message) throws DataValidationException
+	{
+		errors.add(message);
+		if(mode == Mode.FAIL_FAST)
+		{
+			throw new DataValidationException(errors);
+		}
+	}
+}
@@ -0,0 +1,198 @@
+package solution;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.TreeSet;
+
+import baseclasses.Aircraft;
+
+/**
+ * The FeasibilityCheck looks over the whole network before the greedy pass starts, reporting the resources that limit it
+ * A flight needs an aircraft, a captain, a first officer and cabin crew for as long as it is in the air,
+ * so no more flights can overlap than the smallest of those can cover at once.
+ * That gives the fewest flights that must be lost, but not which ones, so it is only reported
+ * and the scheduler leaves whichever flights it cannot cover unallocated as it goes
+ * The check removes nothing from the run unless there are no aircraft, no captains or no first officers at all,
+ * when the scheduler skips every flight
+ */
+public class FeasibilityCheck
+{
+	private boolean unschedulable;
+	private int flights;
+	private int fewestLost;
+	private int peakConcurrent;
+	private int capacity;
+	private String bottleneck;
+	private List<String> unstaffedTypes = new ArrayList<String>();
+
+	/**
+	 * Runs the check over every flight in the timeline
+	 * @param timeline the flights to be scheduled
+	 * @param fleet every aircraft available to fly them
+	 * @param ratings the crew qualified for each type in the fleet
+	 */
+	FeasibilityCheck(FlightTimeline timeline, List<Aircraft> fleet, TypeRatingMatrix ratings)
+	{
+		flights = timeline.size();
+		int captains = ratings.getCaptains(null, null).cardinality();
+		int firstOfficers = ratings.getFirstOfficers(null, null).cardinality();
+		int cabinCrew = ratings.getCabinCrew(null, null).cardinality();
+
+		int leastCabinCrew = Integer.MAX_VALUE;
+		LinkedHashSet<String> types = new LinkedHashSet<String>();
+		for(Aircraft a : fleet)
+		{
+			leastCabinCrew = Math.min(leastCabinCrew, a.getCabinCrewRequired());
+			types.add(a.getTypeCode());
+		}
+		for(String type : types)
+		{
+			int least = Integer.MAX_VALUE;
+			for(Aircraft a : fleet)
+			{
+				if(a.getTypeCode().equals(type))
+				{
+					least = Math.min(least, a.getCabinCrewRequired());
+				}
+			}
+			if(ratings.getCaptains(type, null).isEmpty() || ratings.getFirstOfficers(type, null).isEmpty() || ratings.getCabinCrew(type, null).cardinality() < least)
+			{
+				unstaffedTypes.add(type);
+			}
+		}
+
+		unschedulable = fleet.isEmpty() || captains == 0 || firstOfficers == 0;
+		capacity = fleet.size();
+		bottleneck = "aircraft";
+		if(captains < capacity)
+		{
+			capacity = captains;
+			bottleneck = "captains";
+		}
+		if(firstOfficers < capacity)
+		{
+			capacity = firstOfficers;
+			bottleneck = "first officers";
+		}
+		if(leastCabinCrew > 0 && leastCabinCrew != Integer.MAX_VALUE && cabinCrew / leastCabinCrew < capacity)
+		{
+			capacity = cabinCrew / leastCabinCrew;
+			bottleneck = "cabin crew";
+		}
+		sweep(timeline);
+	}
+
+	/**
+	 * Sweeps the flights in departure order, counting the fewest flights that must be dropped to stay within capacity
+	 * When a flight departs with every resource in use, whichever of it and the flights in the air lands last is counted as dropped,
+	 * which keeps the largest number of flights that fit. Other choices can keep as many, so no particular flight is marked
+	 */
+	private void sweep(final FlightTimeline timeline)
+	{
+		PriorityQueue<Long> allInAir = new PriorityQueue<Long>();
+		TreeSet<Integer> kept = new TreeSet<Integer>(Comparator.<Integer>comparingLong(timeline::getArrival).thenComparingInt(Integer::intValue));
+		for(int i = 0; i < flights; i++)
+		{
+			long departure = timeline.getDeparture(i);
+			while(!allInAir.isEmpty() && allInAir.peek() <= departure)
+			{
+				allInAir.poll();
+			}
+			allInAir.add(timeline.getArrival(i));
+			peakConcurrent = Math.max(peakConcurrent, allInAir.size());
+
+			while(!kept.isEmpty() && timeline.getArrival(kept.first()) <= departure)
+			{
+				kept.pollFirst();
+			}
+			if(kept.size() < capacity)
+			{
+				kept.add(i);
+			}
+			else if(!kept.isEmpty() && timeline.getArrival(kept.last()) > timeline.getArrival(i))
+			{
+				kept.pollLast();
+				kept.add(i);
+				fewestLost++;
+			}
+			else
+			{
+				fewestLost++;
+			}
+		}
+	}
+
+	/**
+	 * Returns whether no flight can be scheduled, as there are no aircraft, no captains or no first officers
+	 * @return true if every flight is unschedulable
+	 */
+	public boolean isUnschedulable()
+	{
+		return unschedulable;
+	}
+
+	/**
+	 * Returns a lower bound on the flights that will be left unallocated, from the overlap of flight times alone
+	 * @return the fewest flights that cannot all be covered
+	 */
+	public int getFewestLost()
+	{
+		return fewestLost;
+	}
+
+	/**
+	 * @return the most flights in the air at the same time
+	 */
+	public int getPeakConcurrent()
+	{
+		return peakConcurrent;
+	}
+
+	/**
+	 * @return the most flights the aircraft and crew can cover at the same time
+	 */
+	public int getCapacity()
+	{
+		return capacity;
+	}
+
+	/**
+	 * @return the resource that sets the capacity: aircraft, captains, first officers or cabin crew
+	 */
+	public String getBottleneck()
+	{
+		return bottleneck;
+	}
+
+	/**
+	 * @return the aircraft types with no rated captain, no rated first officer or too few rated cabin crew
+	 */
+	public List<String> getUnstaffedTypes()
+	{
+		return Collections.unmodifiableList(unstaffedTypes);
+	}
+
+	/**
+	 * @return a short summary of the check, one finding per line
+	 */
+	public String report()
+	{
+		StringBuilder sb = new StringBuilder();
+		sb.append("Flights = ").append(flights).append(System.lineSeparator());
+		sb.append("Peak in the air = ").append(peakConcurrent).append(System.lineSeparator());
+		sb.append("Capacity = ").append(capacity).append(" (").append(bottleneck).append(")").append(System.lineSeparator());
+		sb.append("Fewest flights lost = ").append(fewestLost);
+		if(unschedulable)
+		{
+			sb.append(System.lineSeparator()).append("No aircraft, captains or first officers, nothing can be scheduled");
+		}
+		for(String type : unstaffedTypes)
+		{
+			sb.append(System.lineSeparator()).append("No full crew rated for ").append(type);
+		}
+		return sb.toString();
+	}
+}
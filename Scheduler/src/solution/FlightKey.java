@@ -0,0 +1,34 @@
+package solution;
+import java.time.LocalDate;
+
+/**
+ * The FlightKey packs a flight number and a date into one long, so a flight on a date can key a hash map without an object per key
+ */
+class FlightKey
+{
+	private FlightKey()
+	{
+	}
+
+	/**
+	 * Returns a key unique to a flight on a date
+	 * @param flightNumber the flight number of the flight
+	 * @param epochDay the date of the flight as days since the epoch
+	 * @return the key
+	 */
+	static long of(int flightNumber, long epochDay)
+	{
+		return ((long)flightNumber << 32) | (epochDay & 0xffffffffL);
+	}
+
+	/**
+	 * Returns a key unique to a flight on a date
+	 * @param flightNumber the flight number of the flight
+	 * @param date the date of the flight
+	 * @return the key
+	 */
+	static long of(int flightNumber, LocalDate date)
+	{
+		return of(flightNumber, date.toEpochDay());
+	}
+}
@@ -0,0 +1,158 @@
+package solution;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import baseclasses.FlightInfo;
+import baseclasses.IPassengerNumbersDAO;
+
+/**
+ * The FlightTimeline expands the flights of a schedule window once into arrays sorted by departure,
+ * holding the keys the scheduler needs as primitives so it never has to re-derive dates or re-query the DAOs
+ * getPosition() maps back from the order the flights were given in, so callers can keep that order
+ */
+class FlightTimeline
+{
+	private CodeDictionary airportCodes = new CodeDictionary();
+	private FlightInfo[] flights;
+	private int[] positions;
+	private int[] flightNumbers;
+	private long[] departures;
+	private long[] arrivals;
+	private int[] departureAirports;
+	private int[] passengers;
+
+	/**
+	 * Builds the timeline for the specified flights, joining each one to its passenger forecast
+	 * @param toExpand the flights to expand, usually the remaining allocations of a new schedule
+	 * @param forecasts the passenger numbers to join to each flight
+	 */
+	FlightTimeline(List<FlightInfo> toExpand, IPassengerNumbersDAO forecasts)
+	{
+		int n = toExpand.size();
+		final long[] unsorted = new long[n];
+		Integer[] order = new Integer[n];
+		for(int i = 0; i < n; i++)
+		{
+			unsorted[i] = toEpochMinutes(toExpand.get(i).getDepartureDateTime());
+			order[i] = i;
+		}
+		//a stable sort, so flights departing together keep the order the schedule gave them
+		Arrays.sort(order, Comparator.comparingLong(i -> unsorted[i]));
+
+		flights = new FlightInfo[n];
+		positions = new int[n];
+		flightNumbers = new int[n];
+		departures = new long[n];
+		arrivals = new long[n];
+		departureAirports = new int[n];
+		passengers = new int[n];
+		for(int i = 0; i < n; i++)
+		{
+			FlightInfo f = toExpand.get(order[i]);
+			positions[order[i]] = i;
+			flights[i] = f;
+			flightNumbers[i] = f.getFlight().getFlightNumber();
+			departures[i] = unsorted[order[i]];
+			arrivals[i] = departures[i] + f.getFlight().getDuration().toMinutes();
+			departureAirports[i] = airportCodes.idOf(f.getFlight().getDepartureAirportCode());
+			passengers[i] = forecasts.getPassengerNumbersFor(flightNumbers[i], f.getDepartureDateTime().toLocalDate());
+		}
+	}
+
+	/**
+	 * Returns the number of flights in the timeline
+	 * @return the number of flights in the timeline
+	 */
+	int size()
+	{
+		return flights.length;
+	}
+
+	/**
+	 * Returns the position in the timeline of a flight from the list the timeline was built from
+	 * @param k the index of the flight in that list
+	 * @return the position of the flight in the timeline
+	 */
+	int getPosition(int k)
+	{
+		return positions[k];
+	}
+
+	/**
+	 * Returns the flight at the specified position in the timeline
+	 * @param i the position of the flight
+	 * @return the flight at that position
+	 */
+	FlightInfo getFlight(int i)
+	{
+		return flights[i];
+	}
+
+	/**
+	 * Returns the flight number of the flight at the specified position
+	 * @param i the position of the flight
+	 * @return the flight number
+	 */
+	int getFlightNumber(int i)
+	{
+		return flightNumbers[i];
+	}
+
+	/**
+	 * Returns the departure time of the flight at the specified position, in minutes since the epoch
+	 * @param i the position of the flight
+	 * @return the departure time in epoch minutes
+	 */
+	long getDeparture(int i)
+	{
+		return departures[i];
+	}
+
+	/**
+	 * Returns the departure date of the flight at the specified position, in days since the epoch
+	 * @param i the position of the flight
+	 * @return the departure date in epoch days
+	 */
+	long getDepartureDay(int i)
+	{
+		return Math.floorDiv(departures[i], 24 * 60);
+	}
+
+	/**
+	 * Returns the arrival time of the flight at the specified position, in minutes since the epoch
+	 * @param i the position of the flight
+	 * @return the arrival time in epoch minutes
+	 */
+	long getArrival(int i)
+	{
+		return arrivals[i];
+	}
+
+	/**
+	 * Returns the three letter code of the departure airport of the flight at the specified position
+	 * @param i the position of the flight
+	 * @return the departure airport code
+	 */
+	String getDepartureAirportCode(int i)
+	{
+		return airportCodes.codeOf(departureAirports[i]);
+	}
+
+	/**
+	 * Returns the forecast number of passengers for the flight at the specified position
+	 * @param i the position of the flight
+	 * @return the forecast passengers, or -1 if there is no forecast
+	 */
+	int getPassengers(int i)
+	{
+		return passengers[i];
+	}
+
+	private static long toEpochMinutes(LocalDateTime time)
+	{
+		return time.toEpochSecond(ZoneOffset.UTC) / 60;
+	}
+}
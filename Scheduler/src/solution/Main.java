@@ -3,14 +3,12 @@ package solution;
 import java.nio.file.Paths;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
 
 import baseclasses.CabinCrew;
 import baseclasses.Crew;
 import baseclasses.DataLoadingException;
-import baseclasses.IAircraftDAO;
-import baseclasses.ICrewDAO;
 import baseclasses.IPassengerNumbersDAO;
-import baseclasses.IRouteDAO;
 import baseclasses.IScheduler;
 import baseclasses.Pilot;
 import baseclasses.Route;
@@ -24,23 +22,69 @@ public class Main {
 
 	public static void main(String[] args) 
 	{	
-		IAircraftDAO aircraft = new AircraftDAO();
-		ICrewDAO crew = new CrewDAO();
-		IRouteDAO route = new RouteDAO();
+		AircraftDAO aircraft = new AircraftDAO();
+		CrewDAO crew = new CrewDAO();
+		RouteDAO route = new RouteDAO();
 		IPassengerNumbersDAO passenger = new PassengerNumbersDAO();
         LocalDate from = LocalDate.parse("2020-07-01");
         LocalDate to = LocalDate.parse("2020-08-31");
-        IScheduler scheduler = (IScheduler)new Scheduler();
+        Scheduler scheduler = new Scheduler();
+        AllocationProfiler profiler = null;
+        if(Arrays.asList(args).contains("-profile"))
+        {
+        	profiler = new AllocationProfiler();
+        	scheduler.setProfiler(profiler);
+        }
+        int parallel = Arrays.asList(args).indexOf("-parallel");
+        if(parallel != -1 && parallel + 1 < args.length)
+        {
+        	scheduler.setParallelThreshold(Integer.parseInt(args[parallel + 1]));
+        }
+        DataValidator validator = null;
+        if(Arrays.asList(args).contains("-validate"))
+        {
+        	validator = new DataValidator(DataValidator.Mode.COLLECT_ALL);
+        }
+        else if(Arrays.asList(args).contains("-validate-fast"))
+        {
+        	validator = new DataValidator(DataValidator.Mode.FAIL_FAST);
+        }
+        aircraft.setValidator(validator);
+        crew.setValidator(validator);
+        route.setValidator(validator);
 		try 
 		{
 			aircraft.loadAircraftData(Paths.get("./data/aircraft.csv"));
 	        crew.loadCrewData(Paths.get("./data/crew.json"));
 	        route.loadRouteData(Paths.get("./data/routes.xml"));
 	        passenger.loadPassengerNumbersData(Paths.get("./data/passengernumbers.db"));
+	        //estimates flights with no forecast from each route's whole history, not just the dates being scheduled
+	        scheduler.setPassengerProfile(PassengerProfile.load(Paths.get("./data/passengernumbers.db")));
+	        if(validator != null)
+	        {
+	        	validator.checkReferences();
+	        	validator.throwIfInvalid();
+	        }
 	        SchedulerRunner sr = new SchedulerRunner(aircraft,crew,route,passenger,from,to,scheduler);
+	        long began = System.currentTimeMillis();
 	        Schedule s =  sr.run();
+	        long elapsed = System.currentTimeMillis() - began;
 	        System.out.println("Completed = "+s.getCompletedAllocations().size());
 	        System.out.println("Remaining = "+s.getRemainingAllocations().size());
+	        System.out.println("Time = "+elapsed+"ms");
+	        FeasibilityCheck feasibility = scheduler.getLastFeasibilityCheck();
+	        if(feasibility != null && (feasibility.getFewestLost() > 0 || feasibility.isUnschedulable() || !feasibility.getUnstaffedTypes().isEmpty()))
+	        {
+	        	System.out.println(feasibility.report());
+	        }
+	        if(profiler != null)
+	        {
+	        	System.out.println(profiler.report());
+	        }
+		}
+		catch (DataValidationException dve)
+		{
+			System.err.println(dve.getMessage());
 		}
 		catch (DataLoadingException dle) 
 		{
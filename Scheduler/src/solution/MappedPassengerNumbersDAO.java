@@ -0,0 +1,251 @@
+package solution;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.*;
+import java.time.LocalDate;
+
+import baseclasses.DataLoadingException;
+import baseclasses.IPassengerNumbersDAO;
+
+/**
+ * The MappedPassengerNumbersDAO loads the same SQLite forecasts as the PassengerNumbersDAO
+ * but keeps them off-heap in a memory-mapped file of fixed-width records sorted by flight number and date,
+ * so heap use stays flat however much forecast history is loaded
+ * Each load maps a new file and publishes it in one step, so readers never need to lock
+ */
+public class MappedPassengerNumbersDAO implements IPassengerNumbersDAO
+{
+	/**
+	 * Each record is three ints: flight number, epoch day and passengers
+	 */
+	private static final int RECORD_SIZE = 12;
+
+	private Path store;
+	private volatile MappedByteBuffer records;
+
+	/**
+	 * Returns the number of passenger number entries in the cache
+	 * @return the number of passenger number entries in the cache
+	 */
+	@Override
+	public int getNumberOfEntries()
+	{
+		return entriesIn(records);
+	}
+
+	/**
+	 * Returns the predicted number of passengers for a given flight on a given date, or -1 if no data available
+	 * The records are sorted, so this is a binary search and only the pages it touches are read in
+	 * @param flightNumber The flight number of the flight to check for
+	 * @param date the date of the flight to check for
+	 * @return the predicted number of passengers, or -1 if no data available
+	 */
+	@Override
+	public int getPassengerNumbersFor(int flightNumber, LocalDate date)
+	{
+		MappedByteBuffer buffer = records;
+		int low = 0;
+		int high = entriesIn(buffer) - 1;
+		long epochDay = date.toEpochDay();
+		while(low <= high)
+		{
+			int mid = (low + high) >>> 1;
+			int compare = compare(buffer.getInt(mid * RECORD_SIZE), buffer.getInt(mid * RECORD_SIZE + 4), flightNumber, epochDay);
+			if(compare < 0)
+			{
+				low = mid + 1;
+			}
+			else if(compare > 0)
+			{
+				high = mid - 1;
+			}
+			else
+			{
+				return buffer.getInt(mid * RECORD_SIZE + 8);
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Loads the passenger numbers data from the specified SQLite database into a cache for future calls to getPassengerNumbersFor()
+	 * Multiple calls to this method are additive, but flight numbers/dates previously cached will be overwritten
+	 * The cache can be reset by calling reset()
+	 * The database rows are read in key order and merged with the records already loaded into a new mapped file,
+	 * so only one record at a time is ever held on the heap
+	 * @param p The path of the SQLite database to load data from
+	 * @throws DataLoadingException If there is a problem loading from the database
+	 */
+	@Override
+	public synchronized void loadPassengerNumbersData(Path p) throws DataLoadingException
+	{
+		MappedByteBuffer existing = records;
+		int entries = entriesIn(existing);
+		Connection c = null;
+		Path merged = null;
+		try
+		{
+			c = DriverManager.getConnection("jdbc:sqlite:" +p.toString());
+			Statement s = c.createStatement();
+			ResultSet rs = s.executeQuery("SELECT FlightNumber, Date, Passengers FROM PassengerNumbers ORDER BY FlightNumber, Date");
+			merged = Files.createTempFile("passengers", ".dat");
+			merged.toFile().deleteOnExit();
+			try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(merged))))
+			{
+				RecordWriter writer = new RecordWriter(out);
+				int oldIndex = 0;
+				boolean hasNew = rs.next();
+				while(oldIndex < entries || hasNew)
+				{
+					int oldFlight = 0;
+					int oldDay = 0;
+					if(oldIndex < entries)
+					{
+						oldFlight = existing.getInt(oldIndex * RECORD_SIZE);
+						oldDay = existing.getInt(oldIndex * RECORD_SIZE + 4);
+					}
+					if(hasNew)
+					{
+						int newFlight = rs.getInt("FlightNumber");
+						int newDay = (int)LocalDate.parse(rs.getString("Date")).toEpochDay();
+						int compare = oldIndex < entries ? compare(oldFlight, oldDay, newFlight, newDay) : 1;
+						if(compare >= 0)
+						{
+							//new rows overwrite old rows with the same flight and date
+							writer.write(newFlight, newDay, rs.getInt("Passengers"));
+							hasNew = rs.next();
+							if(compare == 0)
+							{
+								oldIndex++;
+							}
+							continue;
+						}
+					}
+					writer.write(oldFlight, oldDay, existing.getInt(oldIndex * RECORD_SIZE + 8));
+					oldIndex++;
+				}
+				writer.flush();
+			}
+			MappedByteBuffer mapped;
+			try(FileChannel channel = FileChannel.open(merged, StandardOpenOption.READ))
+			{
+				mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			}
+			Path old = store;
+			store = merged;
+			records = mapped;
+			deleteStore(old);
+		}
+		catch(Exception e)
+		{
+			deleteStore(merged);
+			throw new DataLoadingException(e);
+		}
+		finally
+		{
+			try
+			{
+				if(c != null)
+				{
+					c.close();
+				}
+			}
+			catch(SQLException e)
+			{
+				//nothing more can be done with a connection that will not close
+			}
+		}
+	}
+
+	/**
+	 * Removes all data from the DAO, ready to start again if needed
+	 */
+	@Override
+	public synchronized void reset()
+	{
+		Path old = store;
+		store = null;
+		records = null;
+		deleteStore(old);
+	}
+
+	private static int entriesIn(MappedByteBuffer buffer)
+	{
+		if(buffer == null)
+		{
+			return 0;
+		}
+		return buffer.capacity() / RECORD_SIZE;
+	}
+
+	private static int compare(int flightA, long dayA, int flightB, long dayB)
+	{
+		if(flightA != flightB)
+		{
+			return Integer.compare(flightA, flightB);
+		}
+		return Long.compare(dayA, dayB);
+	}
+
+	private static void deleteStore(Path p)
+	{
+		if(p == null)
+		{
+			return;
+		}
+		try
+		{
+			Files.deleteIfExists(p);
+		}
+		catch(IOException e)
+		{
+			//some platforms will not delete a file that is still mapped, deleteOnExit will tidy it up
+		}
+	}
+
+	/**
+	 * Writes records in key order, holding back the last one so that a later record with the same key replaces it
+	 */
+	private static class RecordWriter
+	{
+		private DataOutputStream out;
+		private boolean pending = false;
+		private int flight;
+		private int day;
+		private int passengers;
+
+		RecordWriter(DataOutputStream out)
+		{
+			this.out = out;
+		}
+
+		void write(int flight, int day, int passengers) throws IOException
+		{
+			if(pending && (flight != this.flight || day != this.day))
+			{
+				flush();
+			}
+			this.flight = flight;
+			this.day = day;
+			this.passengers = passengers;
+			pending = true;
+		}
+
+		void flush() throws IOException
+		{
+			if(pending)
+			{
+				out.writeInt(flight);
+				out.writeInt(day);
+				out.writeInt(passengers);
+				pending = false;
+			}
+		}
+	}
+}
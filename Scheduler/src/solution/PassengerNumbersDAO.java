@@ -3,6 +3,9 @@ import java.nio.file.Path;
 import java.sql.*;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 
 import baseclasses.DataLoadingException;
 import baseclasses.IPassengerNumbersDAO;
@@ -10,6 +13,7 @@ import baseclasses.IPassengerNumbersDAO;
 /**
  * The PassengerNumbersDAO is responsible for loading an SQLite database
  * containing forecasts of passenger numbers for flights on dates
+ * The cache is an unmodifiable list replaced in one step by each load, so readers never need to lock
  */
 public class PassengerNumbersDAO implements IPassengerNumbersDAO 
 {
@@ -19,7 +23,7 @@ public class PassengerNumbersDAO implements IPassengerNumbersDAO
 	 * Returns the number of passenger number entries in the cache
 	 * @return the number of passenger number entries in the cache
 	 */
-	ArrayList<Bookings> bookings= new ArrayList<Bookings>();
+	private volatile List<Bookings> bookings = Collections.emptyList();
 	
 	@Override
 	public int getNumberOfEntries() 
@@ -36,11 +40,12 @@ public class PassengerNumbersDAO implements IPassengerNumbersDAO
 	@Override
 	public int getPassengerNumbersFor(int flightNumber, LocalDate date) 
 	{
-		for(int i = 0;i < bookings.size();i++)
+		List<Bookings> cached = bookings;
+		for(int i = 0;i < cached.size();i++)
 		{
-			if(bookings.get(i).getFlightNumber() == flightNumber && bookings.get(i).getDate().equals(date))
+			if(cached.get(i).getFlightNumber() == flightNumber && cached.get(i).getDate().equals(date))
 			{
-				return bookings.get(i).getPassengers();
+				return cached.get(i).getPassengers();
 			}
 			
 		}
@@ -56,8 +61,9 @@ public class PassengerNumbersDAO implements IPassengerNumbersDAO
 	 */
 	@Override
 	
-	public void loadPassengerNumbersData(Path p) throws DataLoadingException 
+	public synchronized void loadPassengerNumbersData(Path p) throws DataLoadingException 
 	{
+		ArrayList<Bookings> loaded = new ArrayList<Bookings>(bookings);
 		Connection c = null;
 		try
 		{
@@ -67,9 +73,9 @@ public class PassengerNumbersDAO implements IPassengerNumbersDAO
 			while(rs.next())
 			{
 				Bookings temp = new Bookings(LocalDate.parse(rs.getString("Date")),rs.getInt("FlightNumber"),rs.getInt("Passengers"));
-				if(!bookings.contains(temp))
+				if(!loaded.contains(temp))
 				{
-					bookings.add(temp);
+					loaded.add(temp);
 				}
 					
 			}
@@ -78,15 +84,47 @@ public class PassengerNumbersDAO implements IPassengerNumbersDAO
 		{
 			throw new DataLoadingException(e);
 		}
+		bookings = Collections.unmodifiableList(loaded);
+	}
+
+	/**
+	 * Adds the forecasts of DAOs loaded separately to this one, publishing them all in one step
+	 * A forecast for the flight and date of one already loaded replaces it, so of the same flight and date the last DAO given wins
+	 * @param shards the DAOs to merge, in order
+	 */
+	synchronized void merge(List<PassengerNumbersDAO> shards)
+	{
+		ArrayList<Bookings> merged = new ArrayList<Bookings>(bookings);
+		HashMap<Long,Integer> positions = new HashMap<Long,Integer>();
+		for(int i = 0; i < merged.size(); i++)
+		{
+			positions.putIfAbsent(FlightKey.of(merged.get(i).getFlightNumber(), merged.get(i).getDate()), i);
+		}
+		for(PassengerNumbersDAO shard : shards)
+		{
+			for(Bookings b : shard.bookings)
+			{
+				Integer at = positions.putIfAbsent(FlightKey.of(b.getFlightNumber(), b.getDate()), merged.size());
+				if(at == null)
+				{
+					merged.add(b);
+				}
+				else
+				{
+					merged.set(at, b);
+				}
+			}
+		}
+		bookings = Collections.unmodifiableList(merged);
 	}
 
 	/**
 	 * Removes all data from the DAO, ready to start again if needed
 	 */
 	@Override
-	public void reset() 
+	public synchronized void reset() 
 	{
-		bookings.clear();
+		bookings = Collections.emptyList();
 	}
 
 }
@@ -0,0 +1,186 @@
+package solution;
+import java.nio.file.Path;
+import java.sql.*;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import baseclasses.DataLoadingException;
+
+/**
+ * The PassengerProfile summarises the passenger forecasts of each route across all of its dates,
+ * giving the mean, median and 90th percentile so the scheduler has a sensible estimate for dates with no forecast
+ */
+public class PassengerProfile 
+{
+	private HashMap<Integer,int[]> routes = new HashMap<Integer,int[]>();
+	private int networkEstimate = -1;
+
+	private static final int MEAN = 0;
+	private static final int MEDIAN = 1;
+	private static final int PERCENTILE_90 = 2;
+
+	/**
+	 * Builds the profile of every route in an SQLite passenger numbers database
+	 * The rows are read in route and passenger order, so only one route's forecasts are held at a time
+	 * @param p The path of the SQLite database to profile
+	 * @return the profile
+	 * @throws DataLoadingException If there is a problem reading the database
+	 */
+	public static PassengerProfile load(Path p) throws DataLoadingException
+	{
+		PassengerProfile profile = new PassengerProfile();
+		try(Connection c = DriverManager.getConnection("jdbc:sqlite:" +p.toString());
+			Statement s = c.createStatement();
+			ResultSet rs = s.executeQuery("SELECT FlightNumber, Passengers FROM PassengerNumbers ORDER BY FlightNumber, Passengers"))
+		{
+			Accumulator route = new Accumulator();
+			while(rs.next())
+			{
+				int flightNumber = rs.getInt("FlightNumber");
+				if(route.count > 0 && flightNumber != route.flightNumber)
+				{
+					profile.add(route);
+					route.reset();
+				}
+				route.flightNumber = flightNumber;
+				route.add(rs.getInt("Passengers"));
+			}
+			if(route.count > 0)
+			{
+				profile.add(route);
+			}
+		}
+		catch(Exception e)
+		{
+			throw new DataLoadingException(e);
+		}
+		profile.finish();
+		return profile;
+	}
+
+	/**
+	 * Builds the profile of every route from the forecasts already joined to a timeline
+	 * @param timeline the timeline to profile
+	 * @return the profile
+	 */
+	static PassengerProfile fromTimeline(FlightTimeline timeline)
+	{
+		HashMap<Integer,Accumulator> byRoute = new HashMap<Integer,Accumulator>();
+		for(int i = 0; i < timeline.size(); i++)
+		{
+			if(timeline.getPassengers(i) != -1)
+			{
+				Accumulator route = byRoute.computeIfAbsent(timeline.getFlightNumber(i), k -> new Accumulator());
+				route.flightNumber = timeline.getFlightNumber(i);
+				route.add(timeline.getPassengers(i));
+			}
+		}
+		PassengerProfile profile = new PassengerProfile();
+		for(Accumulator route : byRoute.values())
+		{
+			Arrays.sort(route.passengers, 0, route.count);
+			profile.add(route);
+		}
+		profile.finish();
+		return profile;
+	}
+
+	/**
+	 * Returns the mean forecast of a route
+	 * @param flightNumber the flight number of the route
+	 * @return the mean forecast, or -1 if the route has no forecasts
+	 */
+	public int getMean(int flightNumber)
+	{
+		return get(flightNumber, MEAN);
+	}
+
+	/**
+	 * Returns the median forecast of a route
+	 * @param flightNumber the flight number of the route
+	 * @return the median forecast, or -1 if the route has no forecasts
+	 */
+	public int getMedian(int flightNumber)
+	{
+		return get(flightNumber, MEDIAN);
+	}
+
+	/**
+	 * Returns the forecast that 90% of a route's dates are at or below
+	 * @param flightNumber the flight number of the route
+	 * @return the 90th percentile forecast, or -1 if the route has no forecasts
+	 */
+	public int getPercentile90(int flightNumber)
+	{
+		return get(flightNumber, PERCENTILE_90);
+	}
+
+	/**
+	 * Returns the passengers to plan for on a date of a route with no forecast
+	 * This is the route's 90th percentile, so most dates fit, or the network-wide median of those if the route has no forecasts at all
+	 * @param flightNumber the flight number of the route
+	 * @return the estimated passengers, or -1 if there are no forecasts at all
+	 */
+	public int estimate(int flightNumber)
+	{
+		int estimate = getPercentile90(flightNumber);
+		return estimate == -1 ? networkEstimate : estimate;
+	}
+
+	private int get(int flightNumber, int statistic)
+	{
+		int[] route = routes.get(flightNumber);
+		return route == null ? -1 : route[statistic];
+	}
+
+	/**
+	 * Adds the statistics of a route whose forecasts are sorted
+	 */
+	private void add(Accumulator route)
+	{
+		int[] statistics = new int[3];
+		statistics[MEAN] = (int)Math.round((double)route.total / route.count);
+		statistics[MEDIAN] = route.passengers[(route.count - 1) / 2];
+		statistics[PERCENTILE_90] = route.passengers[(int)Math.ceil(route.count * 0.9) - 1];
+		routes.put(route.flightNumber, statistics);
+	}
+
+	private void finish()
+	{
+		int[] estimates = new int[routes.size()];
+		int i = 0;
+		for(int[] route : routes.values())
+		{
+			estimates[i++] = route[PERCENTILE_90];
+		}
+		Arrays.sort(estimates);
+		networkEstimate = estimates.length == 0 ? -1 : estimates[(estimates.length - 1) / 2];
+	}
+
+	/**
+	 * Collects the forecasts of one route
+	 */
+	private static class Accumulator
+	{
+		private int flightNumber;
+		private int[] passengers = new int[64];
+		private int count = 0;
+		private long total = 0;
+
+		void add(int passNo)
+		{
+			if(count == passengers.length)
+			{
+				passengers = Arrays.copyOf(passengers, count * 2);
+			}
+			passengers[count++] = passNo;
+			total += passNo;
+		}
+
+		void reset()
+		{
+			count = 0;
+			total = 0;
+		}
+	}
+}
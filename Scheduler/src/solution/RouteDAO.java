@@ -7,6 +7,9 @@ import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import javax.xml.parsers.*;
 
@@ -23,11 +26,59 @@ import baseclasses.Route;
 /**
  * The RouteDAO parses XML files of route information, each route specifying
  * where the airline flies from, to, and on which day of the week
+ * The loaded routes are an unmodifiable list replaced in one step by each load, so readers never need to lock
  */
 public class RouteDAO implements IRouteDAO 
 {
 	
-	ArrayList<Route> routes = new ArrayList<Route>();
+	private volatile List<Route> routes = Collections.emptyList();
+	private volatile DataValidator validator;
+
+	/**
+	 * Sets the validator that checks each route as it is loaded
+	 * With no validator, the first bad route fails the whole load as before
+	 * @param validator the validator to report problems to, or null for none
+	 */
+	public void setValidator(DataValidator validator)
+	{
+		this.validator = validator;
+	}
+
+	DataValidator getValidator()
+	{
+		return validator;
+	}
+
+	/**
+	 * Adds the routes of DAOs loaded separately to this one, publishing them all in one step
+	 * A route with the flight number and day of one already loaded replaces it, so of the same flight the last DAO given wins
+	 * @param shards the DAOs to merge, in order
+	 */
+	synchronized void merge(List<RouteDAO> shards)
+	{
+		ArrayList<Route> merged = new ArrayList<Route>(routes);
+		HashMap<String,Integer> positions = new HashMap<String,Integer>();
+		for(int i = 0; i < merged.size(); i++)
+		{
+			positions.putIfAbsent(merged.get(i).getFlightNumber() + merged.get(i).getDayOfWeek(), i);
+		}
+		for(RouteDAO shard : shards)
+		{
+			for(Route r : shard.routes)
+			{
+				Integer at = positions.putIfAbsent(r.getFlightNumber() + r.getDayOfWeek(), merged.size());
+				if(at == null)
+				{
+					merged.add(r);
+				}
+				else
+				{
+					merged.set(at, r);
+				}
+			}
+		}
+		routes = Collections.unmodifiableList(merged);
+	}
 
 	/**
 	 * Finds all flights that depart on the specified day of the week
@@ -114,13 +165,7 @@ public class RouteDAO implements IRouteDAO
 	@Override
 	public List<Route> getAllRoutes() 
 	{
-		ArrayList<Route> newRoutes = new ArrayList<Route>();
-		for (int i = 0; i < routes.size(); i++) 
-		{
-			newRoutes.add(routes.get(i));
-		}
-		
-		return newRoutes;
+		return new ArrayList<Route>(routes);
 	}
 
 	/**
@@ -141,9 +186,19 @@ public class RouteDAO implements IRouteDAO
 	 * @throws DataLoadingException if anything goes wrong. The exception's "cause" indicates the underlying exception
 	 */
 	@Override
-	public void loadRouteData(Path arg0) throws DataLoadingException 
+	public synchronized void loadRouteData(Path arg0) throws DataLoadingException 
 	{
+		ArrayList<Route> loaded = new ArrayList<Route>(routes);
 		ArrayList<String> days = new ArrayList<String>(Arrays.asList("Mon","Tue","Wed","Thu","Fri","Sat","Sun"));
+		DataValidator check = validator;
+		HashSet<String> flightDays = new HashSet<String>();
+		if(check != null)
+		{
+			for(Route r : loaded)
+			{
+				flightDays.add(r.getFlightNumber() + r.getDayOfWeek());
+			}
+		}
 		try
 		{
 			DocumentBuilder db = DocumentBuilderFactory.newInstance().newDocumentBuilder();
@@ -152,40 +207,75 @@ public class RouteDAO implements IRouteDAO
 			NodeList titles = root.getElementsByTagName("Route");// try changing to Routes to get nicer tree.
 			for(int i = 0; i < titles.getLength(); i++)
 			{
-				Route newRoute = new Route();
-				newRoute.setFlightNumber(Integer.parseInt(titles.item(i).getChildNodes().item(1).getTextContent()));
-				String dow = titles.item(i).getChildNodes().item(3).getTextContent();
-				if(days.contains(dow))
+				Route newRoute;
+				try
 				{
-					newRoute.setDayOfWeek(dow);
+					newRoute = parseRoute(titles.item(i), days);
 				}
-				else
+				catch(Exception e)
 				{
-					throw new DataLoadingException();
+					if(check == null)
+					{
+						throw e;
+					}
+					check.report(arg0, "route " + (i + 1), e.toString());
+					continue;
 				}
-				newRoute.setDepartureTime(LocalTime.parse(titles.item(i).getChildNodes().item(5).getTextContent()));
-				newRoute.setDepartureAirport(titles.item(i).getChildNodes().item(7).getTextContent());
-				newRoute.setDepartureAirportCode(titles.item(i).getChildNodes().item(9).getTextContent());
-				newRoute.setArrivalTime(LocalTime.parse(titles.item(i).getChildNodes().item(11).getTextContent()));
-				newRoute.setArrivalAirport(titles.item(i).getChildNodes().item(13).getTextContent());
-				newRoute.setArrivalAirportCode(titles.item(i).getChildNodes().item(15).getTextContent());
-				newRoute.setDuration(Duration.parse(titles.item(i).getChildNodes().item(17).getTextContent()));
-				routes.add(newRoute);
+				if(check != null)
+				{
+					if(!flightDays.add(newRoute.getFlightNumber() + newRoute.getDayOfWeek()))
+					{
+						check.report(arg0, "route " + (i + 1), "duplicate flight " + newRoute.getFlightNumber() + " on " + newRoute.getDayOfWeek());
+						continue;
+					}
+					check.declareAirport(newRoute.getDepartureAirportCode());
+					check.declareAirport(newRoute.getArrivalAirportCode());
+				}
+				loaded.add(newRoute);
 			}
 		}
+		catch(DataValidationException e)
+		{
+			throw e;
+		}
 		catch(Exception e)
 		{
 			throw new DataLoadingException(e);
 		}
+		routes = Collections.unmodifiableList(loaded);
+	}
+
+	private static Route parseRoute(Node route, List<String> days) throws DataLoadingException
+	{
+		NodeList fields = route.getChildNodes();
+		Route newRoute = new Route();
+		newRoute.setFlightNumber(Integer.parseInt(fields.item(1).getTextContent()));
+		String dow = fields.item(3).getTextContent();
+		if(days.contains(dow))
+		{
+			newRoute.setDayOfWeek(dow);
+		}
+		else
+		{
+			throw new DataLoadingException();
+		}
+		newRoute.setDepartureTime(LocalTime.parse(fields.item(5).getTextContent()));
+		newRoute.setDepartureAirport(fields.item(7).getTextContent());
+		newRoute.setDepartureAirportCode(fields.item(9).getTextContent());
+		newRoute.setArrivalTime(LocalTime.parse(fields.item(11).getTextContent()));
+		newRoute.setArrivalAirport(fields.item(13).getTextContent());
+		newRoute.setArrivalAirportCode(fields.item(15).getTextContent());
+		newRoute.setDuration(Duration.parse(fields.item(17).getTextContent()));
+		return newRoute;
 	}
 
 	/**
 	 * Unloads all of the crew currently loaded, ready to start again if needed
 	 */
 	@Override
-	public void reset() 
+	public synchronized void reset() 
 	{
-		routes.clear();
+		routes = Collections.emptyList();
 	}
 
 }
@@ -0,0 +1,183 @@
+package solution;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+
+import baseclasses.Aircraft;
+import baseclasses.IAircraftDAO;
+import baseclasses.ICrewDAO;
+import baseclasses.IPassengerNumbersDAO;
+
+/**
+ * A Scenario describes a what-if change to the loaded data, such as a different fleet, a crew strike or changed forecasts
+ * It only records the differences, which are laid over the shared DAOs when the scenario is run by a ScenarioBatch
+ */
+public class Scenario 
+{
+	private String name;
+	private HashSet<String> removedTailCodes = new HashSet<String>();
+	private ArrayList<Aircraft> addedAircraft = new ArrayList<Aircraft>();
+	private HashSet<String> removedCrew = new HashSet<String>();
+	private HashSet<String> strikingBases = new HashSet<String>();
+	private double passengerFactor = 1.0;
+	private HashMap<Long,Integer> passengerOverrides = new HashMap<Long,Integer>();
+
+	/**
+	 * Creates a scenario with no changes to the loaded data
+	 * @param name the name the scenario is reported under
+	 */
+	public Scenario(String name)
+	{
+		this.name = name;
+	}
+
+	/**
+	 * @return the name of the scenario
+	 */
+	public String getName()
+	{
+		return name;
+	}
+
+	/**
+	 * Takes an aircraft out of the fleet for this scenario
+	 * @param tailCode the tail code of the aircraft to remove
+	 * @return this scenario
+	 */
+	public Scenario removeAircraft(String tailCode)
+	{
+		removedTailCodes.add(tailCode.toUpperCase());
+		return this;
+	}
+
+	/**
+	 * Adds an aircraft to the fleet for this scenario
+	 * @param a the aircraft to add
+	 * @return this scenario
+	 */
+	public Scenario addAircraft(Aircraft a)
+	{
+		addedAircraft.add(a);
+		return this;
+	}
+
+	/**
+	 * Makes a crew member unavailable for this scenario
+	 * @param forename the forename of the crew member
+	 * @param surname the surname of the crew member
+	 * @return this scenario
+	 */
+	public Scenario removeCrew(String forename, String surname)
+	{
+		removedCrew.add(forename + " " + surname);
+		return this;
+	}
+
+	/**
+	 * Makes every crew member based at an airport unavailable for this scenario
+	 * @param airportCode the three letter code of the striking home base
+	 * @return this scenario
+	 */
+	public Scenario strikeAtBase(String airportCode)
+	{
+		strikingBases.add(airportCode);
+		return this;
+	}
+
+	/**
+	 * Scales every passenger forecast for this scenario
+	 * @param factor the factor to multiply forecasts by
+	 * @return this scenario
+	 */
+	public Scenario scalePassengers(double factor)
+	{
+		passengerFactor = factor;
+		return this;
+	}
+
+	/**
+	 * Replaces the passenger forecast for a single flight on a single date
+	 * Overrides are not scaled by scalePassengers()
+	 * @param flightNumber the flight number of the flight
+	 * @param date the date of the flight
+	 * @param passengers the forecast to use
+	 * @return this scenario
+	 */
+	public Scenario overridePassengers(int flightNumber, LocalDate date, int passengers)
+	{
+		passengerOverrides.put(FlightKey.of(flightNumber, date), passengers);
+		return this;
+	}
+
+	/**
+	 * Returns a view of the shared aircraft with this scenario's fleet changes applied
+	 * @param base the shared aircraft
+	 * @return the view, or the shared aircraft themselves if the fleet is unchanged
+	 */
+	IAircraftDAO applyTo(IAircraftDAO base)
+	{
+		return changesFleet() ? new ScenarioAircraftDAO(base, this) : base;
+	}
+
+	/**
+	 * Returns a view of the shared crew with this scenario's unavailable crew taken out
+	 * @param base the shared crew
+	 * @return the view, or the shared crew themselves if the crew is unchanged
+	 */
+	ICrewDAO applyTo(ICrewDAO base)
+	{
+		return changesCrew() ? new ScenarioCrewDAO(base, this) : base;
+	}
+
+	/**
+	 * Returns a view of the shared passenger numbers with this scenario's forecast changes applied
+	 * @param base the shared passenger numbers
+	 * @return the view, or the shared passenger numbers themselves if the forecasts are unchanged
+	 */
+	IPassengerNumbersDAO applyTo(IPassengerNumbersDAO base)
+	{
+		return changesPassengers() ? new ScenarioPassengerNumbersDAO(base, this) : base;
+	}
+
+	boolean isAircraftRemoved(String tailCode)
+	{
+		return removedTailCodes.contains(tailCode.toUpperCase());
+	}
+
+	List<Aircraft> getAddedAircraft()
+	{
+		return addedAircraft;
+	}
+
+	boolean isCrewRemoved(String forename, String surname, String homeBase)
+	{
+		return strikingBases.contains(homeBase) || removedCrew.contains(forename + " " + surname);
+	}
+
+	boolean changesFleet()
+	{
+		return !removedTailCodes.isEmpty() || !addedAircraft.isEmpty();
+	}
+
+	boolean changesCrew()
+	{
+		return !removedCrew.isEmpty() || !strikingBases.isEmpty();
+	}
+
+	boolean changesPassengers()
+	{
+		return passengerFactor != 1.0 || !passengerOverrides.isEmpty();
+	}
+
+	double getPassengerFactor()
+	{
+		return passengerFactor;
+	}
+
+	Integer getPassengerOverride(int flightNumber, LocalDate date)
+	{
+		return passengerOverrides.get(FlightKey.of(flightNumber, date));
+	}
+}
@@ -0,0 +1,136 @@
+package solution;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import baseclasses.Aircraft;
+import baseclasses.DataLoadingException;
+import baseclasses.IAircraftDAO;
+
+/**
+ * The ScenarioAircraftDAO is a read-only view of a shared aircraft DAO with a scenario's fleet changes laid over it
+ * Nothing is copied from the shared DAO, each finder filters its results as they are returned
+ */
+class ScenarioAircraftDAO implements IAircraftDAO 
+{
+	private IAircraftDAO base;
+	private Scenario scenario;
+
+	ScenarioAircraftDAO(IAircraftDAO base, Scenario scenario)
+	{
+		this.base = base;
+		this.scenario = scenario;
+	}
+
+	/**
+	 * Scenario views cannot be loaded, load the shared DAO instead
+	 */
+	@Override
+	public void loadAircraftData(Path p) throws DataLoadingException 
+	{
+		throw new UnsupportedOperationException("Scenario views are read-only");
+	}
+
+	@Override
+	public List<Aircraft> findAircraftBySeats(int seats) 
+	{
+		List<Aircraft> found = filter(base.findAircraftBySeats(seats));
+		for(Aircraft a : scenario.getAddedAircraft())
+		{
+			if(seats <= a.getSeats())
+			{
+				found.add(a);
+			}
+		}
+		return found;
+	}
+
+	@Override
+	public List<Aircraft> findAircraftByStartingPosition(String startingPosition) 
+	{
+		List<Aircraft> found = filter(base.findAircraftByStartingPosition(startingPosition));
+		for(Aircraft a : scenario.getAddedAircraft())
+		{
+			if(startingPosition.equals(a.getStartingPosition()))
+			{
+				found.add(a);
+			}
+		}
+		return found;
+	}
+
+	@Override
+	public Aircraft findAircraftByTailCode(String tailCode) 
+	{
+		if(!scenario.isAircraftRemoved(tailCode))
+		{
+			Aircraft a = base.findAircraftByTailCode(tailCode);
+			if(a != null)
+			{
+				return a;
+			}
+		}
+		for(Aircraft a : scenario.getAddedAircraft())
+		{
+			if(tailCode.equalsIgnoreCase(a.getTailCode()))
+			{
+				return a;
+			}
+		}
+		return null;
+	}
+
+	@Override
+	public List<Aircraft> findAircraftByType(String typeCode) 
+	{
+		List<Aircraft> found = filter(base.findAircraftByType(typeCode));
+		for(Aircraft a : scenario.getAddedAircraft())
+		{
+			if(typeCode.equals(a.getTypeCode()))
+			{
+				found.add(a);
+			}
+		}
+		return found;
+	}
+
+	@Override
+	public List<Aircraft> getAllAircraft() 
+	{
+		List<Aircraft> found = filter(base.getAllAircraft());
+		found.addAll(scenario.getAddedAircraft());
+		return found;
+	}
+
+	@Override
+	public int getNumberOfAircraft() 
+	{
+		if(!scenario.changesFleet())
+		{
+			return base.getNumberOfAircraft();
+		}
+		return getAllAircraft().size();
+	}
+
+	/**
+	 * Scenario views cannot be reset, reset the shared DAO instead
+	 */
+	@Override
+	public void reset() 
+	{
+		throw new UnsupportedOperationException("Scenario views are read-only");
+	}
+
+	private List<Aircraft> filter(List<Aircraft> found)
+	{
+		ArrayList<Aircraft> kept = new ArrayList<Aircraft>(found.size());
+		for(Aircraft a : found)
+		{
+			if(!scenario.isAircraftRemoved(a.getTailCode()))
+			{
+				kept.add(a);
+			}
+		}
+		return kept;
+	}
+}
@@ -0,0 +1,94 @@
+package solution;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import baseclasses.IAircraftDAO;
+import baseclasses.ICrewDAO;
+import baseclasses.IPassengerNumbersDAO;
+import baseclasses.IRouteDAO;
+import baseclasses.Schedule;
+
+/**
+ * The ScenarioBatch runs many what-if scenarios over the same loaded data concurrently
+ * Every scenario shares the loaded DAOs, seeing them through lightweight read-only views that apply its changes,
+ * so nothing is copied per scenario. The shared DAOs must not be loaded or reset while a batch is running
+ */
+public class ScenarioBatch 
+{
+	private IAircraftDAO aircraft;
+	private ICrewDAO crew;
+	private IRouteDAO routes;
+	private IPassengerNumbersDAO passengers;
+	private int threads;
+
+	/**
+	 * Creates a batch over the specified loaded data
+	 * @param aircraft the loaded aircraft shared by every scenario
+	 * @param crew the loaded crew shared by every scenario
+	 * @param routes the loaded routes shared by every scenario
+	 * @param passengers the loaded passenger numbers shared by every scenario
+	 * @param threads the most scenarios to schedule at once
+	 */
+	public ScenarioBatch(IAircraftDAO aircraft, ICrewDAO crew, IRouteDAO routes, IPassengerNumbersDAO passengers, int threads)
+	{
+		this.aircraft = aircraft;
+		this.crew = crew;
+		this.routes = routes;
+		this.passengers = passengers;
+		this.threads = threads;
+	}
+
+	/**
+	 * Schedules every scenario for the specified dates and waits for them all to finish
+	 * A scenario that throws does not stop the others, its result records the failure instead
+	 * @param scenarios the scenarios to run
+	 * @param start the first date to schedule
+	 * @param end the last date to schedule
+	 * @return a result for each scenario, in the same order as the scenarios
+	 * @throws InterruptedException if interrupted while waiting for the scenarios to finish
+	 */
+	public List<ScenarioResult> run(List<Scenario> scenarios, LocalDate start, LocalDate end) throws InterruptedException
+	{
+		ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, scenarios.size())));
+		try
+		{
+			ArrayList<Future<ScenarioResult>> futures = new ArrayList<Future<ScenarioResult>>();
+			for(Scenario scenario : scenarios)
+			{
+				futures.add(pool.submit(() -> runScenario(scenario, start, end)));
+			}
+			ArrayList<ScenarioResult> results = new ArrayList<ScenarioResult>();
+			for(int i = 0; i < futures.size(); i++)
+			{
+				try
+				{
+					results.add(futures.get(i).get());
+				}
+				catch(ExecutionException e)
+				{
+					results.add(new ScenarioResult(scenarios.get(i), e.getCause()));
+				}
+			}
+			return results;
+		}
+		finally
+		{
+			pool.shutdownNow();
+		}
+	}
+
+	private ScenarioResult runScenario(Scenario scenario, LocalDate start, LocalDate end)
+	{
+		long began = System.currentTimeMillis();
+		IAircraftDAO scenarioAircraft = scenario.applyTo(aircraft);
+		ICrewDAO scenarioCrew = scenario.applyTo(crew);
+		IPassengerNumbersDAO scenarioPassengers = scenario.applyTo(passengers);
+		Schedule s = new Scheduler().generateSchedule(scenarioAircraft, scenarioCrew, routes, scenarioPassengers, start, end);
+		return new ScenarioResult(scenario, s, new ScheduleSummary(s, scenarioPassengers), System.currentTimeMillis() - began);
+	}
+}
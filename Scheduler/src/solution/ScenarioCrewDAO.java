@@ -0,0 +1,147 @@
+package solution;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+import baseclasses.CabinCrew;
+import baseclasses.Crew;
+import baseclasses.DataLoadingException;
+import baseclasses.ICrewDAO;
+import baseclasses.Pilot;
+
+/**
+ * The ScenarioCrewDAO is a read-only view of a shared crew DAO with a scenario's unavailable crew taken out
+ * The unavailable crew are resolved once when the view is created, each finder then filters its results by identity
+ */
+class ScenarioCrewDAO implements ICrewDAO 
+{
+	private ICrewDAO base;
+	private Set<Crew> removed = Collections.newSetFromMap(new IdentityHashMap<Crew,Boolean>());
+
+	ScenarioCrewDAO(ICrewDAO base, Scenario scenario)
+	{
+		this.base = base;
+		if(scenario.changesCrew())
+		{
+			for(Crew c : base.getAllCrew())
+			{
+				if(scenario.isCrewRemoved(c.getForename(), c.getSurname(), c.getHomeBase()))
+				{
+					removed.add(c);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Scenario views cannot be loaded, load the shared DAO instead
+	 */
+	@Override
+	public void loadCrewData(Path p) throws DataLoadingException 
+	{
+		throw new UnsupportedOperationException("Scenario views are read-only");
+	}
+
+	@Override
+	public List<CabinCrew> findCabinCrewByHomeBase(String airportCode) 
+	{
+		return filter(base.findCabinCrewByHomeBase(airportCode));
+	}
+
+	@Override
+	public List<CabinCrew> findCabinCrewByHomeBaseAndTypeRating(String typeCode, String airportCode) 
+	{
+		return filter(base.findCabinCrewByHomeBaseAndTypeRating(typeCode, airportCode));
+	}
+
+	@Override
+	public List<CabinCrew> findCabinCrewByTypeRating(String typeCode) 
+	{
+		return filter(base.findCabinCrewByTypeRating(typeCode));
+	}
+
+	@Override
+	public List<Pilot> findPilotsByHomeBase(String airportCode) 
+	{
+		return filter(base.findPilotsByHomeBase(airportCode));
+	}
+
+	@Override
+	public List<Pilot> findPilotsByHomeBaseAndTypeRating(String typeCode, String airportCode) 
+	{
+		return filter(base.findPilotsByHomeBaseAndTypeRating(typeCode, airportCode));
+	}
+
+	@Override
+	public List<Pilot> findPilotsByTypeRating(String typeCode) 
+	{
+		return filter(base.findPilotsByTypeRating(typeCode));
+	}
+
+	@Override
+	public List<CabinCrew> getAllCabinCrew() 
+	{
+		return filter(base.getAllCabinCrew());
+	}
+
+	@Override
+	public List<Crew> getAllCrew() 
+	{
+		return filter(base.getAllCrew());
+	}
+
+	@Override
+	public List<Pilot> getAllPilots() 
+	{
+		return filter(base.getAllPilots());
+	}
+
+	@Override
+	public int getNumberOfCabinCrew() 
+	{
+		if(removed.isEmpty())
+		{
+			return base.getNumberOfCabinCrew();
+		}
+		return getAllCabinCrew().size();
+	}
+
+	@Override
+	public int getNumberOfPilots() 
+	{
+		if(removed.isEmpty())
+		{
+			return base.getNumberOfPilots();
+		}
+		return getAllPilots().size();
+	}
+
+	/**
+	 * Scenario views cannot be reset, reset the shared DAO instead
+	 */
+	@Override
+	public void reset() 
+	{
+		throw new UnsupportedOperationException("Scenario views are read-only");
+	}
+
+	private <T extends Crew> List<T> filter(List<T> found)
+	{
+		if(removed.isEmpty())
+		{
+			return found;
+		}
+		ArrayList<T> kept = new ArrayList<T>(found.size());
+		for(T c : found)
+		{
+			if(!removed.contains(c))
+			{
+				kept.add(c);
+			}
+		}
+		return kept;
+	}
+}
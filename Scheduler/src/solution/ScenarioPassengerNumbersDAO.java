@@ -0,0 +1,61 @@
+package solution;
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+import baseclasses.DataLoadingException;
+import baseclasses.IPassengerNumbersDAO;
+
+/**
+ * The ScenarioPassengerNumbersDAO is a read-only view of a shared passenger numbers DAO with a scenario's forecast changes applied
+ */
+class ScenarioPassengerNumbersDAO implements IPassengerNumbersDAO 
+{
+	private IPassengerNumbersDAO base;
+	private Scenario scenario;
+
+	ScenarioPassengerNumbersDAO(IPassengerNumbersDAO base, Scenario scenario)
+	{
+		this.base = base;
+		this.scenario = scenario;
+	}
+
+	@Override
+	public int getNumberOfEntries() 
+	{
+		return base.getNumberOfEntries();
+	}
+
+	@Override
+	public int getPassengerNumbersFor(int flightNumber, LocalDate date) 
+	{
+		Integer override = scenario.getPassengerOverride(flightNumber, date);
+		if(override != null)
+		{
+			return override;
+		}
+		int passengers = base.getPassengerNumbersFor(flightNumber, date);
+		if(passengers == -1)
+		{
+			return -1;
+		}
+		return (int)Math.round(passengers * scenario.getPassengerFactor());
+	}
+
+	/**
+	 * Scenario views cannot be loaded, load the shared DAO instead
+	 */
+	@Override
+	public void loadPassengerNumbersData(Path p) throws DataLoadingException 
+	{
+		throw new UnsupportedOperationException("Scenario views are read-only");
+	}
+
+	/**
+	 * Scenario views cannot be reset, reset the shared DAO instead
+	 */
+	@Override
+	public void reset() 
+	{
+		throw new UnsupportedOperationException("Scenario views are read-only");
+	}
+}
@@ -0,0 +1,76 @@
+package solution;
+import baseclasses.Schedule;
+
+/**
+ * The ScenarioResult holds the schedule and cost summary produced for one scenario of a ScenarioBatch
+ */
+public class ScenarioResult 
+{
+	private Scenario scenario;
+	private Schedule schedule;
+	private ScheduleSummary summary;
+	private long elapsedMillis;
+	private Throwable failure;
+
+	ScenarioResult(Scenario scenario, Schedule schedule, ScheduleSummary summary, long elapsedMillis)
+	{
+		this.scenario = scenario;
+		this.schedule = schedule;
+		this.summary = summary;
+		this.elapsedMillis = elapsedMillis;
+	}
+
+	ScenarioResult(Scenario scenario, Throwable failure)
+	{
+		this.scenario = scenario;
+		this.failure = failure;
+	}
+
+	/**
+	 * @return the scenario that was run
+	 */
+	public Scenario getScenario()
+	{
+		return scenario;
+	}
+
+	/**
+	 * @return the generated schedule, or null if the scenario failed
+	 */
+	public Schedule getSchedule()
+	{
+		return schedule;
+	}
+
+	/**
+	 * @return the cost summary of the schedule, or null if the scenario failed
+	 */
+	public ScheduleSummary getSummary()
+	{
+		return summary;
+	}
+
+	/**
+	 * @return how long the scenario took to schedule, in milliseconds
+	 */
+	public long getElapsedMillis()
+	{
+		return elapsedMillis;
+	}
+
+	/**
+	 * @return the exception the scenario failed with, or null if it succeeded
+	 */
+	public Throwable getFailure()
+	{
+		return failure;
+	}
+
+	/**
+	 * @return true if the scenario was scheduled without throwing
+	 */
+	public boolean isSuccessful()
+	{
+		return failure == null;
+	}
+}
@@ -0,0 +1,196 @@
+package solution;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import baseclasses.Schedule;
+
+/**
+ * The ScheduleDiff compares two schedules flight by flight, keyed by flight number and date,
+ * and reports the flights that were added, removed or given a different aircraft or crew
+ * Both schedules are read once and matched through a hash of the keys, so the comparison is linear in their size
+ */
+public class ScheduleDiff 
+{
+	/**
+	 * A Change is a flight allocated in both schedules with a different aircraft or crew
+	 */
+	public static class Change 
+	{
+		private AllocationRecord before;
+		private AllocationRecord after;
+
+		Change(AllocationRecord before, AllocationRecord after)
+		{
+			this.before = before;
+			this.after = after;
+		}
+
+		/**
+		 * @return the flight's allocation in the earlier schedule
+		 */
+		public AllocationRecord getBefore()
+		{
+			return before;
+		}
+
+		/**
+		 * @return the flight's allocation in the later schedule
+		 */
+		public AllocationRecord getAfter()
+		{
+			return after;
+		}
+
+		/**
+		 * @return true if the flight has a different aircraft
+		 */
+		public boolean isAircraftChanged()
+		{
+			return !before.getTailCode().equalsIgnoreCase(after.getTailCode());
+		}
+
+		/**
+		 * @return true if the flight has a different captain
+		 */
+		public boolean isCaptainChanged()
+		{
+			return !before.getCaptain().equals(after.getCaptain());
+		}
+
+		/**
+		 * @return true if the flight has a different first officer
+		 */
+		public boolean isFirstOfficerChanged()
+		{
+			return !before.getFirstOfficer().equals(after.getFirstOfficer());
+		}
+
+		/**
+		 * Cabin crew are compared as a set, so a reordering of the same crew is not a change
+		 * @return true if the flight has different cabin crew
+		 */
+		public boolean isCabinCrewChanged()
+		{
+			return before.getCabinCrew().size() != after.getCabinCrew().size() || !before.getCabinCrew().containsAll(after.getCabinCrew());
+		}
+	}
+
+	private List<AllocationRecord> added = new ArrayList<AllocationRecord>();
+	private List<AllocationRecord> removed = new ArrayList<AllocationRecord>();
+	private List<Change> changed = new ArrayList<Change>();
+	private int unchanged = 0;
+
+	/**
+	 * Compares the completed allocations of two schedules
+	 * @param before the earlier schedule
+	 * @param after the later schedule
+	 * @return the differences between them
+	 */
+	public static ScheduleDiff compare(Schedule before, Schedule after)
+	{
+		return compare(AllocationRecord.fromSchedule(before), AllocationRecord.fromSchedule(after));
+	}
+
+	/**
+	 * Compares two lists of allocations, such as schedules loaded from a ScheduleStore
+	 * @param before the earlier allocations
+	 * @param after the later allocations
+	 * @return the differences between them
+	 */
+	public static ScheduleDiff compare(List<AllocationRecord> before, List<AllocationRecord> after)
+	{
+		ScheduleDiff diff = new ScheduleDiff();
+		HashMap<Long,AllocationRecord> earlier = new HashMap<Long,AllocationRecord>(before.size() * 2);
+		for(AllocationRecord a : before)
+		{
+			earlier.put(a.getKey(), a);
+		}
+		for(AllocationRecord a : after)
+		{
+			AllocationRecord previous = earlier.remove(a.getKey());
+			if(previous == null)
+			{
+				diff.added.add(a);
+				continue;
+			}
+			Change c = new Change(previous, a);
+			if(c.isAircraftChanged() || c.isCaptainChanged() || c.isFirstOfficerChanged() || c.isCabinCrewChanged())
+			{
+				diff.changed.add(c);
+			}
+			else
+			{
+				diff.unchanged++;
+			}
+		}
+		for(AllocationRecord a : before)
+		{
+			if(earlier.containsKey(a.getKey()))
+			{
+				diff.removed.add(a);
+			}
+		}
+		return diff;
+	}
+
+	/**
+	 * @return the flights allocated only in the later schedule
+	 */
+	public List<AllocationRecord> getAdded()
+	{
+		return added;
+	}
+
+	/**
+	 * @return the flights allocated only in the earlier schedule
+	 */
+	public List<AllocationRecord> getRemoved()
+	{
+		return removed;
+	}
+
+	/**
+	 * @return the flights allocated in both schedules with a different aircraft or crew
+	 */
+	public List<Change> getChanged()
+	{
+		return changed;
+	}
+
+	/**
+	 * @return the number of flights allocated identically in both schedules
+	 */
+	public int getUnchanged()
+	{
+		return unchanged;
+	}
+
+	/**
+	 * @return true if the schedules allocate every flight identically
+	 */
+	public boolean isEmpty()
+	{
+		return added.isEmpty() && removed.isEmpty() && changed.isEmpty();
+	}
+
+	@Override
+	public String toString()
+	{
+		int aircraft = 0;
+		int crew = 0;
+		for(Change c : changed)
+		{
+			if(c.isAircraftChanged())
+			{
+				aircraft++;
+			}
+			if(c.isCaptainChanged() || c.isFirstOfficerChanged() || c.isCabinCrewChanged())
+			{
+				crew++;
+			}
+		}
+		return "Added = " + added.size() + ", Removed = " + removed.size() + ", Changed = " + changed.size()
+				+ " (aircraft " + aircraft + ", crew " + crew + "), Unchanged = " + unchanged;
+	}
+}
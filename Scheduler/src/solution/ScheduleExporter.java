@@ -0,0 +1,241 @@
+package solution;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import org.json.JSONObject;
+
+import baseclasses.CabinCrew;
+import baseclasses.FlightInfo;
+import baseclasses.Schedule;
+
+/**
+ * The ScheduleExporter writes the completed allocations of a schedule to a file one allocation at a time,
+ * so memory use stays the same however long the schedule is
+ */
+public class ScheduleExporter 
+{
+	/**
+	 * The formats a schedule can be exported in
+	 */
+	public enum Format 
+	{
+		/** One allocation per line, cabin crew separated by semicolons */
+		CSV,
+		/** One JSON object per line */
+		NDJSON,
+		/** Blocks of up to BLOCK_SIZE allocations, each block written column by column */
+		COLUMNAR
+	}
+
+	/**
+	 * The number of allocations held for each block of the columnar format
+	 */
+	public static final int BLOCK_SIZE = 4096;
+
+	private static final int MAGIC = 0x5343484c;
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private Format format;
+	private boolean gzip;
+
+	/**
+	 * Creates an exporter
+	 * @param format the format to write
+	 * @param gzip whether to gzip the output
+	 */
+	public ScheduleExporter(Format format, boolean gzip)
+	{
+		this.format = format;
+		this.gzip = gzip;
+	}
+
+	/**
+	 * Writes the completed allocations of a schedule to a file, replacing it if it exists
+	 * @param s the schedule to export
+	 * @param p the file to write to
+	 * @throws IOException if the file cannot be written
+	 */
+	public void export(Schedule s, Path p) throws IOException
+	{
+		try(FileChannel channel = FileChannel.open(p, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING))
+		{
+			export(s, Channels.newOutputStream(channel));
+		}
+	}
+
+	/**
+	 * Writes the completed allocations of a schedule to a stream and closes it
+	 * @param s the schedule to export
+	 * @param out the stream to write to
+	 * @throws IOException if the stream cannot be written
+	 */
+	public void export(Schedule s, OutputStream out) throws IOException
+	{
+		if(gzip)
+		{
+			out = new GZIPOutputStream(out, BUFFER_SIZE);
+		}
+		switch(format)
+		{
+		case CSV:
+			try(Writer w = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE))
+			{
+				writeCsv(s, w);
+			}
+			break;
+		case NDJSON:
+			try(Writer w = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE))
+			{
+				writeNdjson(s, w);
+			}
+			break;
+		case COLUMNAR:
+			try(DataOutputStream d = new DataOutputStream(new BufferedOutputStream(out, BUFFER_SIZE)))
+			{
+				writeColumnar(s, d);
+			}
+			break;
+		}
+	}
+
+	private static void writeCsv(Schedule s, Writer w) throws IOException
+	{
+		w.write("FlightNumber,Date,TailCode,Captain,FirstOfficer,CabinCrew\n");
+		for(FlightInfo f : s.getCompletedAllocations())
+		{
+			w.write(Integer.toString(f.getFlight().getFlightNumber()));
+			w.write(',');
+			w.write(f.getDepartureDateTime().toLocalDate().toString());
+			w.write(',');
+			w.write(csv(s.getAircraftFor(f).getTailCode()));
+			w.write(',');
+			w.write(csv(AllocationRecord.nameOf(s.getCaptainOf(f))));
+			w.write(',');
+			w.write(csv(AllocationRecord.nameOf(s.getFirstOfficerOf(f))));
+			w.write(',');
+			w.write(csv(cabinCrewOf(s, f)));
+			w.write('\n');
+		}
+	}
+
+	private static void writeNdjson(Schedule s, Writer w) throws IOException
+	{
+		for(FlightInfo f : s.getCompletedAllocations())
+		{
+			w.write("{\"flight\":");
+			w.write(Integer.toString(f.getFlight().getFlightNumber()));
+			w.write(",\"date\":\"");
+			w.write(f.getDepartureDateTime().toLocalDate().toString());
+			w.write("\",\"aircraft\":");
+			w.write(JSONObject.quote(s.getAircraftFor(f).getTailCode()));
+			w.write(",\"captain\":");
+			w.write(JSONObject.quote(AllocationRecord.nameOf(s.getCaptainOf(f))));
+			w.write(",\"firstOfficer\":");
+			w.write(JSONObject.quote(AllocationRecord.nameOf(s.getFirstOfficerOf(f))));
+			w.write(",\"cabinCrew\":[");
+			List<CabinCrew> cabinCrew = s.getCabinCrewOf(f);
+			for(int i = 0; i < cabinCrew.size(); i++)
+			{
+				if(i > 0)
+				{
+					w.write(',');
+				}
+				w.write(JSONObject.quote(AllocationRecord.nameOf(cabinCrew.get(i))));
+			}
+			w.write("]}\n");
+		}
+	}
+
+	/**
+	 * Writes a header of magic number and block size, then each block as a row count followed by
+	 * its flight number column, epoch day column and one UTF column each for tail codes, captains,
+	 * first officers and semicolon separated cabin crew. A row count of zero ends the file
+	 */
+	private static void writeColumnar(Schedule s, DataOutputStream d) throws IOException
+	{
+		d.writeInt(MAGIC);
+		d.writeInt(BLOCK_SIZE);
+		int[] flights = new int[BLOCK_SIZE];
+		int[] days = new int[BLOCK_SIZE];
+		String[] tailCodes = new String[BLOCK_SIZE];
+		String[] captains = new String[BLOCK_SIZE];
+		String[] firstOfficers = new String[BLOCK_SIZE];
+		String[] cabinCrew = new String[BLOCK_SIZE];
+		int rows = 0;
+		for(FlightInfo f : s.getCompletedAllocations())
+		{
+			flights[rows] = f.getFlight().getFlightNumber();
+			days[rows] = (int)f.getDepartureDateTime().toLocalDate().toEpochDay();
+			tailCodes[rows] = s.getAircraftFor(f).getTailCode();
+			captains[rows] = AllocationRecord.nameOf(s.getCaptainOf(f));
+			firstOfficers[rows] = AllocationRecord.nameOf(s.getFirstOfficerOf(f));
+			cabinCrew[rows] = cabinCrewOf(s, f);
+			rows++;
+			if(rows == BLOCK_SIZE)
+			{
+				writeBlock(d, rows, flights, days, tailCodes, captains, firstOfficers, cabinCrew);
+				rows = 0;
+			}
+		}
+		if(rows > 0)
+		{
+			writeBlock(d, rows, flights, days, tailCodes, captains, firstOfficers, cabinCrew);
+		}
+		d.writeInt(0);
+	}
+
+	private static void writeBlock(DataOutputStream d, int rows, int[] flights, int[] days, String[]... columns) throws IOException
+	{
+		d.writeInt(rows);
+		for(int i = 0; i < rows; i++)
+		{
+			d.writeInt(flights[i]);
+		}
+		for(int i = 0; i < rows; i++)
+		{
+			d.writeInt(days[i]);
+		}
+		for(String[] column : columns)
+		{
+			for(int i = 0; i < rows; i++)
+			{
+				d.writeUTF(column[i]);
+			}
+		}
+	}
+
+	private static String cabinCrewOf(Schedule s, FlightInfo f)
+	{
+		StringBuilder names = new StringBuilder();
+		for(CabinCrew c : s.getCabinCrewOf(f))
+		{
+			if(names.length() > 0)
+			{
+				names.append(';');
+			}
+			names.append(AllocationRecord.nameOf(c));
+		}
+		return names.toString();
+	}
+
+	private static String csv(String field)
+	{
+		if(field.indexOf(',') == -1 && field.indexOf('"') == -1 && field.indexOf('\n') == -1)
+		{
+			return field;
+		}
+		return "\"" + field.replace("\"", "\"\"") + "\"";
+	}
+}
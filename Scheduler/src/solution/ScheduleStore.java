@@ -0,0 +1,193 @@
+package solution;
+import java.nio.file.Path;
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import baseclasses.Schedule;
+
+/**
+ * The ScheduleStore persists generated schedules to an SQLite database so they can be queried, diffed
+ * or loaded back to warm start the Scheduler
+ * Each schedule is written with batched prepared statements inside a single transaction
+ */
+public class ScheduleStore implements AutoCloseable 
+{
+	private Connection c;
+
+	/**
+	 * Opens the store, creating the database and its tables if they do not exist
+	 * @param p The path of the SQLite database
+	 * @throws SQLException If the database cannot be opened
+	 */
+	public ScheduleStore(Path p) throws SQLException
+	{
+		c = DriverManager.getConnection("jdbc:sqlite:" +p.toString());
+		try(Statement s = c.createStatement())
+		{
+			s.executeUpdate("CREATE TABLE IF NOT EXISTS Schedules (Id INTEGER PRIMARY KEY AUTOINCREMENT, Name TEXT, StartDate TEXT, EndDate TEXT)");
+			s.executeUpdate("CREATE TABLE IF NOT EXISTS Allocations (ScheduleId INTEGER, FlightNumber INTEGER, Date TEXT, TailCode TEXT, Captain TEXT, FirstOfficer TEXT, "
+					+ "PRIMARY KEY (ScheduleId, FlightNumber, Date))");
+			s.executeUpdate("CREATE TABLE IF NOT EXISTS AllocatedCabinCrew (ScheduleId INTEGER, FlightNumber INTEGER, Date TEXT, Position INTEGER, Name TEXT, "
+					+ "PRIMARY KEY (ScheduleId, FlightNumber, Date, Position))");
+			s.executeUpdate("CREATE INDEX IF NOT EXISTS AllocationsByAircraft ON Allocations (ScheduleId, TailCode, Date)");
+			s.executeUpdate("CREATE INDEX IF NOT EXISTS AllocationsByCaptain ON Allocations (ScheduleId, Captain, Date)");
+			s.executeUpdate("CREATE INDEX IF NOT EXISTS AllocationsByFirstOfficer ON Allocations (ScheduleId, FirstOfficer, Date)");
+			s.executeUpdate("CREATE INDEX IF NOT EXISTS CabinCrewByName ON AllocatedCabinCrew (ScheduleId, Name, Date)");
+		}
+	}
+
+	/**
+	 * Saves the completed allocations of a schedule
+	 * @param name a name to find the schedule by later
+	 * @param s the schedule to save
+	 * @param start the first date the schedule covers
+	 * @param end the last date the schedule covers
+	 * @return the id the schedule was saved under
+	 * @throws SQLException If the schedule cannot be saved, in which case nothing is saved
+	 */
+	public int save(String name, Schedule s, LocalDate start, LocalDate end) throws SQLException
+	{
+		return save(name, AllocationRecord.fromSchedule(s), start, end);
+	}
+
+	/**
+	 * Saves a list of allocations as a schedule
+	 * @param name a name to find the schedule by later
+	 * @param allocations the allocations to save
+	 * @param start the first date the schedule covers
+	 * @param end the last date the schedule covers
+	 * @return the id the schedule was saved under
+	 * @throws SQLException If the schedule cannot be saved, in which case nothing is saved
+	 */
+	public synchronized int save(String name, List<AllocationRecord> allocations, LocalDate start, LocalDate end) throws SQLException
+	{
+		boolean autoCommit = c.getAutoCommit();
+		c.setAutoCommit(false);
+		try
+		{
+			int id;
+			try(PreparedStatement schedule = c.prepareStatement("INSERT INTO Schedules (Name, StartDate, EndDate) VALUES (?, ?, ?)"))
+			{
+				schedule.setString(1, name);
+				schedule.setString(2, start.toString());
+				schedule.setString(3, end.toString());
+				schedule.executeUpdate();
+			}
+			try(Statement s = c.createStatement(); ResultSet rs = s.executeQuery("SELECT last_insert_rowid()"))
+			{
+				rs.next();
+				id = rs.getInt(1);
+			}
+			try(PreparedStatement allocation = c.prepareStatement("INSERT INTO Allocations VALUES (?, ?, ?, ?, ?, ?)");
+				PreparedStatement cabinCrew = c.prepareStatement("INSERT INTO AllocatedCabinCrew VALUES (?, ?, ?, ?, ?)"))
+			{
+				for(AllocationRecord a : allocations)
+				{
+					String date = a.getDate().toString();
+					allocation.setInt(1, id);
+					allocation.setInt(2, a.getFlightNumber());
+					allocation.setString(3, date);
+					allocation.setString(4, a.getTailCode());
+					allocation.setString(5, a.getCaptain());
+					allocation.setString(6, a.getFirstOfficer());
+					allocation.addBatch();
+					for(int i = 0; i < a.getCabinCrew().size(); i++)
+					{
+						cabinCrew.setInt(1, id);
+						cabinCrew.setInt(2, a.getFlightNumber());
+						cabinCrew.setString(3, date);
+						cabinCrew.setInt(4, i);
+						cabinCrew.setString(5, a.getCabinCrew().get(i));
+						cabinCrew.addBatch();
+					}
+				}
+				allocation.executeBatch();
+				cabinCrew.executeBatch();
+			}
+			c.commit();
+			return id;
+		}
+		catch(SQLException | RuntimeException e)
+		{
+			//restoring auto-commit would commit whatever was inserted, so it is rolled back first
+			c.rollback();
+			throw e;
+		}
+		finally
+		{
+			c.setAutoCommit(autoCommit);
+		}
+	}
+
+	/**
+	 * Loads the allocations of a saved schedule, ready to be compared or passed to Scheduler.setWarmStart()
+	 * @param scheduleId the id the schedule was saved under
+	 * @return the saved allocations, ordered by date and flight number
+	 * @throws SQLException If the schedule cannot be loaded
+	 */
+	public synchronized List<AllocationRecord> load(int scheduleId) throws SQLException
+	{
+		LinkedHashMap<String,List<String>> cabinCrew = new LinkedHashMap<String,List<String>>();
+		try(PreparedStatement s = c.prepareStatement("SELECT FlightNumber, Date, Name FROM AllocatedCabinCrew WHERE ScheduleId = ? ORDER BY Date, FlightNumber, Position"))
+		{
+			s.setInt(1, scheduleId);
+			try(ResultSet rs = s.executeQuery())
+			{
+				while(rs.next())
+				{
+					cabinCrew.computeIfAbsent(rs.getInt("FlightNumber") + " " + rs.getString("Date"), k -> new ArrayList<String>()).add(rs.getString("Name"));
+				}
+			}
+		}
+		ArrayList<AllocationRecord> allocations = new ArrayList<AllocationRecord>();
+		try(PreparedStatement s = c.prepareStatement("SELECT * FROM Allocations WHERE ScheduleId = ? ORDER BY Date, FlightNumber"))
+		{
+			s.setInt(1, scheduleId);
+			try(ResultSet rs = s.executeQuery())
+			{
+				while(rs.next())
+				{
+					List<String> names = cabinCrew.get(rs.getInt("FlightNumber") + " " + rs.getString("Date"));
+					allocations.add(new AllocationRecord(rs.getInt("FlightNumber"), LocalDate.parse(rs.getString("Date")), rs.getString("TailCode"),
+							rs.getString("Captain"), rs.getString("FirstOfficer"), names == null ? new ArrayList<String>() : names));
+				}
+			}
+		}
+		return allocations;
+	}
+
+	/**
+	 * Returns the id of the most recently saved schedule with the specified name
+	 * @param name the name the schedule was saved under
+	 * @return the id of the schedule, or -1 if there is none with that name
+	 * @throws SQLException If the database cannot be queried
+	 */
+	public synchronized int findLatest(String name) throws SQLException
+	{
+		try(PreparedStatement s = c.prepareStatement("SELECT MAX(Id) FROM Schedules WHERE Name = ?"))
+		{
+			s.setString(1, name);
+			try(ResultSet rs = s.executeQuery())
+			{
+				if(rs.next())
+				{
+					int id = rs.getInt(1);
+					if(!rs.wasNull())
+					{
+						return id;
+					}
+				}
+				return -1;
+			}
+		}
+	}
+
+	@Override
+	public synchronized void close() throws SQLException
+	{
+		c.close();
+	}
+}
@@ -0,0 +1,92 @@
+package solution;
+import baseclasses.Aircraft;
+import baseclasses.FlightInfo;
+import baseclasses.IPassengerNumbersDAO;
+import baseclasses.Schedule;
+
+/**
+ * The ScheduleSummary holds the headline costs of a generated schedule, so schedules can be compared without keeping them
+ */
+public class ScheduleSummary 
+{
+	private int completed;
+	private int remaining;
+	private long emptySeats;
+	private int overbookedFlights;
+	private int unforecastFlights;
+
+	/**
+	 * Summarises a generated schedule
+	 * @param s the schedule to summarise
+	 * @param passengers the passenger numbers the schedule was generated with
+	 */
+	public ScheduleSummary(Schedule s, IPassengerNumbersDAO passengers)
+	{
+		completed = s.getCompletedAllocations().size();
+		remaining = s.getRemainingAllocations().size();
+		for(FlightInfo f : s.getCompletedAllocations())
+		{
+			Aircraft a = s.getAircraftFor(f);
+			int passNo = passengers.getPassengerNumbersFor(f.getFlight().getFlightNumber(), f.getDepartureDateTime().toLocalDate());
+			if(passNo == -1)
+			{
+				unforecastFlights++;
+			}
+			else if(passNo > a.getSeats())
+			{
+				overbookedFlights++;
+			}
+			else
+			{
+				emptySeats += a.getSeats() - passNo;
+			}
+		}
+	}
+
+	/**
+	 * @return the number of flights that were fully allocated
+	 */
+	public int getCompleted()
+	{
+		return completed;
+	}
+
+	/**
+	 * @return the number of flights left unallocated
+	 */
+	public int getRemaining()
+	{
+		return remaining;
+	}
+
+	/**
+	 * @return the total number of forecast empty seats across the allocated flights
+	 */
+	public long getEmptySeats()
+	{
+		return emptySeats;
+	}
+
+	/**
+	 * @return the number of allocated flights whose forecast is more than the aircraft's seats
+	 */
+	public int getOverbookedFlights()
+	{
+		return overbookedFlights;
+	}
+
+	/**
+	 * @return the number of allocated flights with no passenger forecast
+	 */
+	public int getUnforecastFlights()
+	{
+		return unforecastFlights;
+	}
+
+	@Override
+	public String toString()
+	{
+		return "Completed = " + completed + ", Remaining = " + remaining + ", Empty seats = " + emptySeats
+				+ ", Overbooked = " + overbookedFlights + ", Unforecast = " + unforecastFlights;
+	}
+}
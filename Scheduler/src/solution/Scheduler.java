@@ -1,6 +1,10 @@
 package solution;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
 import baseclasses.Aircraft;
 import baseclasses.CabinCrew;
 import baseclasses.DoubleBookedException;
@@ -19,145 +23,363 @@ public class Scheduler implements IScheduler
 {
 	private FlightInfo flight1;
 	private Schedule s;
+	private volatile boolean stopped = false;
+	private volatile boolean lastRunStopped = false;
+	private int parallelThreshold = Integer.MAX_VALUE;
+	private HashMap<Long,AllocationRecord> warmStart;
+	private TypeRatingMatrix ratings;
+	private PassengerProfile profile;
+	private AllocationProfiler profiler;
+	private FeasibilityCheck feasibility;
 
-	private Aircraft getBestPlane(ArrayList<Aircraft> planes, int passNo)
+	/**
+	 * Returns the feasibility check made at the start of the last run
+	 * @return the check, or null if nothing has been scheduled yet
+	 */
+	public FeasibilityCheck getLastFeasibilityCheck()
 	{
-		Aircraft bestPlane = null;
-		for(Aircraft a : planes) 				
+		return feasibility;
+	}
+
+	/**
+	 * Sets a profiler to record the allocation of each phase of a run and of each DAO method it calls
+	 * @param profiler the profiler to record into, or null to run without profiling
+	 */
+	public void setProfiler(AllocationProfiler profiler)
+	{
+		this.profiler = profiler;
+	}
+
+	/**
+	 * Records the phase that has just ended if profiling, returning the mark for the next phase
+	 */
+	private long lap(String phase, long mark)
+	{
+		return profiler == null ? 0 : profiler.lap(phase, mark);
+	}
+
+	/**
+	 * Sets the passenger profile used to estimate flights with no forecast
+	 * Without one, a profile is built from the forecasts of the flights being scheduled
+	 * @param profile the profile to use, or null to build one for each run
+	 */
+	public void setPassengerProfile(PassengerProfile profile)
+	{
+		this.profile = profile;
+	}
+
+	/**
+	 * Sets allocations from an earlier schedule to keep wherever they are still valid
+	 * The earlier aircraft and each earlier crew member are kept if they are still free and qualified, anything else is chosen as usual
+	 * @param previous the earlier allocations, or null to schedule every flight from scratch
+	 */
+	public void setWarmStart(List<AllocationRecord> previous)
+	{
+		if(previous == null)
 		{
-			if(bestPlane == null || (a.getSeats()-passNo) < (bestPlane.getSeats() - passNo))
+			warmStart = null;
+			return;
+		}
+		warmStart = new HashMap<Long,AllocationRecord>();
+		for(AllocationRecord a : previous)
+		{
+			warmStart.put(a.getKey(), a);
+		}
+	}
+
+	/**
+	 * Keeps the allocations of an earlier schedule wherever they are still valid, so a rerun changes as little as possible
+	 * @param previous the earlier schedule
+	 */
+	public void setPreviousSchedule(Schedule previous)
+	{
+		setWarmStart(AllocationRecord.fromSchedule(previous));
+	}
+
+	private Aircraft getPreviousPlane(AllocationRecord previous, IAircraftDAO planes)
+	{
+		if(previous == null)
+		{
+			return null;
+		}
+		Aircraft plane = planes.findAircraftByTailCode(previous.getTailCode());
+		if(plane == null || s.hasConflict(plane, flight1))
+		{
+			return null;
+		}
+		return plane;
+	}
+
+	/**
+	 * Returns the position of the earlier pilot if they are still qualified and free, or -1
+	 */
+	private int getPreviousPilot(String name, BitSet qualified, BitSet busy)
+	{
+		if(name == null)
+		{
+			return -1;
+		}
+		int i = ratings.indexOfPilot(name);
+		if(i == -1 || !qualified.get(i) || busy.get(i) || s.hasConflict(ratings.getPilots()[i], flight1))
+		{
+			return -1;
+		}
+		return i;
+	}
+
+	/**
+	 * Returns the positions of the earlier cabin crew of the current flight that are still qualified and free, marking them as taken
+	 */
+	private ArrayList<Integer> getPreviousCabinCrew(AllocationRecord previous, BitSet qualified, int count, BitSet taken)
+	{
+		ArrayList<Integer> kept = new ArrayList<Integer>();
+		if(previous == null)
+		{
+			return kept;
+		}
+		CabinCrew[] cabinCrew = ratings.getCabinCrew();
+		for(String name : previous.getCabinCrew())
+		{
+			int i = ratings.indexOfCabinCrew(name);
+			if(kept.size() < count && i != -1 && qualified.get(i) && !taken.get(i) && !s.hasConflict(cabinCrew[i], flight1))
 			{
-				if(!s.hasConflict(a, flight1))
-				{
-					bestPlane = a;
-				}
+				kept.add(i);
+				taken.set(i);
 			}
 		}
-		return bestPlane;
-	}	
+		return kept;
+	}
 
-	private Pilot getBestPilot(ArrayList<Pilot> pilots)
+	/**
+	 * Sets the smallest set of crew candidates that is checked for conflicts in parallel rather than one candidate at a time
+	 * Either way the same candidates are chosen, ties always going to the earliest in the list
+	 * Checking in parallel calls Schedule.hasConflict from several threads at once, which assumes it only reads the schedule
+	 * @param threshold the smallest list to check in parallel, or Integer.MAX_VALUE to always check sequentially
+	 */
+	public void setParallelThreshold(int threshold)
 	{
-		for(Pilot p : pilots)
+		parallelThreshold = threshold;
+	}
+
+	/**
+	 * Returns the position of the first pilot without a conflict, trying each pool in turn, or -1 if there is none
+	 * Busy pilots are never checked, and pilots in an earlier pool were already found to conflict, so they are not checked again
+	 */
+	private int getBestPilot(BitSet busy, BitSet... pools)
+	{
+		BitSet checked = (BitSet)busy.clone();
+		for(BitSet pool : pools)
 		{
-			if(p.getRank().equals(Pilot.Rank.CAPTAIN) && !s.hasConflict(p,flight1)) 
+			BitSet candidates = (BitSet)pool.clone();
+			candidates.andNot(checked);
+			int[] available = getAvailable(candidates, ratings.getPilots(), 1);
+			if(available.length > 0)
 			{
-				return p;
+				return available[0];
 			}
+			checked.or(candidates);
 		}
-		return null;
+		return -1;
 	}
 
-	private Pilot getBestFirstOfficer(ArrayList<Pilot> pilots)
+	/**
+	 * Adds the positions of cabin crew without a conflict to the chosen list until it has enough, trying each pool in turn
+	 * Cabin crew already taken for this flight, or busy on another, are never offered
+	 */
+	private void getBestCabinCrew(ArrayList<Integer> chosen, int count, BitSet taken, BitSet... pools)
 	{
-		for(Pilot p : pilots)
+		for(BitSet pool : pools)
 		{
-			if(p.getRank().equals(Pilot.Rank.FIRST_OFFICER) && !s.hasConflict(p,flight1))
+			if(chosen.size() >= count)
 			{
-				return p;
+				return;
 			}
+			BitSet candidates = (BitSet)pool.clone();
+			candidates.andNot(taken);
+			for(int i : getAvailable(candidates, ratings.getCabinCrew(), count - chosen.size()))
+			{
+				chosen.add(i);
+				taken.set(i);
+			}
+			//the rest of this pool conflicts, so later pools can skip it
+			taken.or(candidates);
 		}
-		return null;
 	}
 
-	private ArrayList<CabinCrew> getBestCabinCrew(ArrayList<CabinCrew> crews,int count)
+	/**
+	 * Returns the positions of up to count candidates without a conflict, earliest first
+	 * Large candidate sets are checked in parallel, which finds exactly the same candidates
+	 */
+	private int[] getAvailable(BitSet candidates, Pilot[] members, int count)
 	{
-		ArrayList<CabinCrew> bestCabinCrew = new ArrayList<CabinCrew>();
-		for(CabinCrew c : crews)
+		if(candidates.cardinality() >= parallelThreshold)
+		{
+			Schedule schedule = s;
+			FlightInfo flight = flight1;
+			return candidates.stream().parallel().filter(i -> !schedule.hasConflict(members[i], flight)).limit(count).toArray();
+		}
+		int[] found = new int[count];
+		int n = 0;
+		for(int i = candidates.nextSetBit(0); i >= 0 && n < count; i = candidates.nextSetBit(i + 1))
 		{
-			if(!s.hasConflict(c,flight1))
+			if(!s.hasConflict(members[i], flight1))
 			{
-				bestCabinCrew.add(c);
-				count--;
+				found[n++] = i;
 			}
-			if(count == 0)
+		}
+		return Arrays.copyOf(found, n);
+	}
+
+	private int[] getAvailable(BitSet candidates, CabinCrew[] members, int count)
+	{
+		if(candidates.cardinality() >= parallelThreshold)
+		{
+			Schedule schedule = s;
+			FlightInfo flight = flight1;
+			return candidates.stream().parallel().filter(i -> !schedule.hasConflict(members[i], flight)).limit(count).toArray();
+		}
+		int[] found = new int[count];
+		int n = 0;
+		for(int i = candidates.nextSetBit(0); i >= 0 && n < count; i = candidates.nextSetBit(i + 1))
+		{
+			if(!s.hasConflict(members[i], flight1))
 			{
-				return bestCabinCrew;
+				found[n++] = i;
 			}
 		}
-		return bestCabinCrew;
+		return Arrays.copyOf(found, n);
 	}
+
 	@Override
 	public Schedule generateSchedule(IAircraftDAO planes, ICrewDAO crew, IRouteDAO routes, IPassengerNumbersDAO passengers,
 			LocalDate start, LocalDate end) 
 	{
+		long mark = 0;
+		if(profiler != null)
+		{
+			planes = profiler.wrap(IAircraftDAO.class, planes);
+			crew = profiler.wrap(ICrewDAO.class, crew);
+			routes = profiler.wrap(IRouteDAO.class, routes);
+			passengers = profiler.wrap(IPassengerNumbersDAO.class, passengers);
+			mark = profiler.begin();
+		}
 		s = new Schedule(routes,start,end);
+		FlightTimeline timeline = new FlightTimeline(s.getRemainingAllocations(), passengers);
+		ratings = TypeRatingMatrix.forData(planes, crew);
+		CrewCalendar calendar = new CrewCalendar(timeline);
+		List<Aircraft> allPlanes = planes.getAllAircraft();
+		feasibility = new FeasibilityCheck(timeline, allPlanes, ratings);
+
+		//WITH NO AIRCRAFT OR NO PILOTS NOTHING CAN BE SCHEDULED, SO NOTHING IS TRIED
+		//flights are tried in the order the schedule gives them, the timeline is only sorted for looking them up
+
+		int[] pending = new int[timeline.size()];
+		for(int i = 0; i < pending.length; i++)
+		{
+			pending[i] = timeline.getPosition(i);
+		}
+		int pendingCount = feasibility.isUnschedulable() ? 0 : pending.length;
+		PassengerProfile forecasts = profile != null ? profile : PassengerProfile.fromTimeline(timeline);
+		SeatIndex fleet = new SeatIndex(allPlanes);
+		HashMap<String,SeatIndex> fleetByStartingPosition = new HashMap<String,SeatIndex>();
+		IAircraftDAO fleetPlanes = planes;
+		mark = lap("setup", mark);
 		int restart = 0;
-		while(!s.isCompleted())
+		int failedInARow = 0;
+		//a whole pass with no allocation would repeat forever, as every choice depends only on the schedule so far
+		while(pendingCount > 0 && failedInARow < pendingCount && !stopped)
 		{
-			flight1 = s.getRemainingAllocations().get(restart);
+			if(restart > pendingCount-1)
+			{
+				restart = 0;
+			}
+			int index = pending[restart];
+			flight1 = timeline.getFlight(index);
+			String departureAirport = timeline.getDepartureAirportCode(index);
+
+			//PREFERS THE WARM START ALLOCATION WHEREVER IT IS STILL VALID
+
+			AllocationRecord previous = warmStart == null ? null : warmStart.get(FlightKey.of(timeline.getFlightNumber(index), timeline.getDepartureDay(index)));
 
 			//DECIDES AIRCRAFT
 
-			int passNo = passengers.getPassengerNumbersFor(flight1.getFlight().getFlightNumber(),flight1.getDepartureDateTime().toLocalDate());
-			ArrayList<Aircraft> startingPos = (ArrayList<Aircraft>)planes.findAircraftByStartingPosition(flight1.getFlight().getDepartureAirportCode());
-			Aircraft bestPlane = getBestPlane(startingPos,passNo);
+			int passNo = timeline.getPassengers(index);
+			if(passNo == -1)
+			{
+				passNo = forecasts.estimate(timeline.getFlightNumber(index));
+			}
+			Aircraft bestPlane = getPreviousPlane(previous, planes);
+			if(bestPlane == null)
+			{
+				SeatIndex startingPos = fleetByStartingPosition.computeIfAbsent(departureAirport, airport -> new SeatIndex(fleetPlanes.findAircraftByStartingPosition(airport)));
+				bestPlane = startingPos.findBest(passNo, s, flight1);
+			}
 			if(bestPlane == null)
 			{
-				bestPlane =  getBestPlane((ArrayList<Aircraft>)planes.getAllAircraft(),passNo);
+				bestPlane = fleet.findBest(passNo, s, flight1);
+			}
+			mark = lap("aircraft", mark);
+			if(bestPlane == null)
+			{
+				//every aircraft is flying at the time, so this flight is left for now like any other failed attempt
+				failedInARow++;
+				restart ++;
+				continue;
 			}
 
 			//DECIDES PILOTS
 
-			ArrayList<Pilot> pilot = (ArrayList<Pilot>)crew.findPilotsByHomeBaseAndTypeRating(bestPlane.getTypeCode(),flight1.getFlight().getDepartureAirportCode()) ;
-			Pilot captain =  getBestPilot(pilot);
-			Pilot firstOfficer = getBestFirstOfficer(pilot);
-			ArrayList<Pilot> allPilots = (ArrayList<Pilot>) crew.getAllPilots();
-			if(captain == null)
+			String type = bestPlane.getTypeCode();
+			BitSet busyPilots = calendar.getBusyPilots(index);
+			int captain = getPreviousPilot(previous == null ? null : previous.getCaptain(), ratings.getCaptains(type, null), busyPilots);
+			int firstOfficer = getPreviousPilot(previous == null ? null : previous.getFirstOfficer(), ratings.getFirstOfficers(type, null), busyPilots);
+			if(captain == -1)
 			{
-				captain = getBestPilot((ArrayList<Pilot>) crew.findPilotsByTypeRating(bestPlane.getTypeCode()));
-				if(captain == null)
-				{
-					captain = getBestPilot(allPilots);
-				}
+				captain = getBestPilot(busyPilots, ratings.getCaptains(type, departureAirport), ratings.getCaptains(type, null), ratings.getCaptains(null, null));
 			}
-			if(firstOfficer == null)
+			if(firstOfficer == -1)
 			{
-				firstOfficer = getBestFirstOfficer((ArrayList<Pilot>) crew.findPilotsByTypeRating(bestPlane.getTypeCode()));
-				if(firstOfficer == null)
-				{
-					firstOfficer = getBestFirstOfficer(allPilots);
-				}
+				firstOfficer = getBestPilot(busyPilots, ratings.getFirstOfficers(type, departureAirport), ratings.getFirstOfficers(type, null), ratings.getFirstOfficers(null, null));
 			}
+			mark = lap("pilots", mark);
 
 			//DECIDES CABIN CREW
 
 			int count = bestPlane.getCabinCrewRequired();
-			ArrayList<CabinCrew> bestCabinCrew = (ArrayList<CabinCrew>)crew.findCabinCrewByHomeBaseAndTypeRating(bestPlane.getTypeCode(),flight1.getFlight().getDepartureAirportCode());
-			ArrayList<CabinCrew> allCabinCrew = (ArrayList<CabinCrew>)crew.getAllCabinCrew();
-			bestCabinCrew = getBestCabinCrew(bestCabinCrew,count);
-			if(bestCabinCrew.size() < count)
-			{
-				bestCabinCrew.addAll(getBestCabinCrew((ArrayList<CabinCrew>)crew.findCabinCrewByTypeRating(bestPlane.getTypeCode()),count - bestCabinCrew.size()));
-				if(bestCabinCrew.size() < count)
-				{
-					bestCabinCrew.addAll(getBestCabinCrew(allCabinCrew,count - bestCabinCrew.size()));
-				}
-			}
+			BitSet taken = calendar.getBusyCabinCrew(index);
+			ArrayList<Integer> bestCabinCrew = getPreviousCabinCrew(previous, ratings.getCabinCrew(type, null), count, taken);
+			getBestCabinCrew(bestCabinCrew, count, taken, ratings.getCabinCrew(type, departureAirport), ratings.getCabinCrew(type, null), ratings.getCabinCrew(null, null));
+			mark = lap("cabin crew", mark);
 
 			//ALLOCATES EVRYTHING
 
 			try
 			{
 				s.allocateAircraftTo(bestPlane, flight1);
-				s.allocateCaptainTo(captain, flight1);
-				s.allocateFirstOfficerTo(firstOfficer, flight1);
-				for(CabinCrew c : bestCabinCrew)
+				s.allocateCaptainTo(captain == -1 ? null : ratings.getPilots()[captain], flight1);
+				s.allocateFirstOfficerTo(firstOfficer == -1 ? null : ratings.getPilots()[firstOfficer], flight1);
+				int[] cabin = new int[bestCabinCrew.size()];
+				for(int i = 0; i < cabin.length; i++)
 				{
-					s.allocateCabinCrewTo(c, flight1);
+					cabin[i] = bestCabinCrew.get(i);
+					s.allocateCabinCrewTo(ratings.getCabinCrew()[cabin[i]], flight1);
 				}
 				s.completeAllocationFor(flight1);
+				calendar.allocate(index, captain, firstOfficer, cabin);
+				failedInARow = 0;
+				pendingCount--;
+				System.arraycopy(pending, restart + 1, pending, restart, pendingCount - restart);
 			}
 			catch(DoubleBookedException | InvalidAllocationException dbe)
 			{
 				s.unAllocate(flight1);				
+				failedInARow++;
 				restart ++;
 			}
-			if(restart > s.getRemainingAllocations().size()-1)
-			{
-				restart = 0;
-			}
+			mark = lap("allocation", mark);
 		}
+		lastRunStopped = stopped && pendingCount > 0;
+		stopped = false;
 		return s;
 	}
 
@@ -166,10 +388,21 @@ public class Scheduler implements IScheduler
 	{
 	}
 
+	/**
+	 * Stops the current run, or the next one if none is running, leaving the rest of its flights unallocated
+	 */
 	@Override
 	public void stop() 
 	{
-		// TODO Auto-generated method stub
+		stopped = true;
+	}
 
+	/**
+	 * Returns whether the last run was stopped before it had tried every flight
+	 * @return true if the last run was cut short by stop()
+	 */
+	public boolean wasStopped()
+	{
+		return lastRunStopped;
 	}
 }
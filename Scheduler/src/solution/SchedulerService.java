@@ -0,0 +1,266 @@
+package solution;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.json.JSONWriter;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import baseclasses.CabinCrew;
+import baseclasses.DataLoadingException;
+import baseclasses.FlightInfo;
+import baseclasses.IAircraftDAO;
+import baseclasses.ICrewDAO;
+import baseclasses.IPassengerNumbersDAO;
+import baseclasses.Schedule;
+
+/**
+ * The SchedulerService keeps the data loaded and answers schedule requests over HTTP on localhost,
+ * so each request only pays for scheduling rather than for starting a JVM and loading the data
+ *
+ * GET /schedule?from=2020-07-01&amp;to=2020-08-31 returns the schedule as JSON, streamed as it is written
+ * Optional parameters: budget (milliseconds before the run is stopped and the partial schedule returned),
+ * removeAircraft (comma separated tail codes), strike (comma separated home bases) and scale (passenger forecast factor)
+ */
+public class SchedulerService 
+{
+	private static final long DEFAULT_BUDGET_MILLIS = 30000;
+
+	private DataReloader data;
+	private HttpServer server;
+	private ExecutorService workers;
+	private ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor();
+
+	/**
+	 * Creates a service over the specified data
+	 * @param data the reloader holding the loaded data, each request uses its current snapshot
+	 * @param threads the most requests to schedule at once
+	 */
+	public SchedulerService(DataReloader data, int threads)
+	{
+		this.data = data;
+		this.workers = Executors.newFixedThreadPool(threads);
+	}
+
+	/**
+	 * Starts listening for requests on localhost
+	 * @param port the port to listen on
+	 * @throws IOException if the port cannot be bound
+	 */
+	public void start(int port) throws IOException
+	{
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+		server.createContext("/schedule", this::handleSchedule);
+		server.setExecutor(workers);
+		server.start();
+	}
+
+	/**
+	 * Stops listening, letting requests already running finish
+	 */
+	public void stop()
+	{
+		server.stop(0);
+		workers.shutdown();
+		timer.shutdownNow();
+	}
+
+	private void handleSchedule(HttpExchange exchange) throws IOException
+	{
+		try
+		{
+			HashMap<String,String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+			LocalDate from;
+			LocalDate to;
+			long budget;
+			Scenario scenario;
+			try
+			{
+				from = LocalDate.parse(query.get("from"));
+				to = LocalDate.parse(query.get("to"));
+				budget = query.containsKey("budget") ? Long.parseLong(query.get("budget")) : DEFAULT_BUDGET_MILLIS;
+				scenario = parseScenario(query);
+			}
+			catch(RuntimeException e)
+			{
+				sendError(exchange, 400, "Expected from and to dates, e.g. ?from=2020-07-01&to=2020-08-31");
+				return;
+			}
+
+			DataSnapshot snapshot = data.getSnapshot();
+			if(snapshot == null)
+			{
+				sendError(exchange, 500, "No data has been loaded");
+				return;
+			}
+			IAircraftDAO aircraft = scenario.applyTo(snapshot.getAircraft());
+			ICrewDAO crew = scenario.applyTo(snapshot.getCrew());
+			IPassengerNumbersDAO passengers = scenario.applyTo(snapshot.getPassengers());
+			Scheduler scheduler = new Scheduler();
+			ScheduledFuture<?> deadline = timer.schedule(scheduler::stop, budget, TimeUnit.MILLISECONDS);
+			long began = System.currentTimeMillis();
+			Schedule s = scheduler.generateSchedule(aircraft, crew, snapshot.getRoutes(), passengers, from, to);
+			deadline.cancel(false);
+			boolean timedOut = scheduler.wasStopped();
+			long elapsed = System.currentTimeMillis() - began;
+
+			//the whole body is written before the status is sent, so a failure part way through still gets a 500
+			ByteArrayOutputStream body = new ByteArrayOutputStream();
+			try(Writer out = new BufferedWriter(new OutputStreamWriter(body, StandardCharsets.UTF_8)))
+			{
+				writeSchedule(out, s, new ScheduleSummary(s, passengers), timedOut, elapsed);
+			}
+			exchange.getResponseHeaders().set("Content-Type", "application/json");
+			exchange.sendResponseHeaders(200, body.size());
+			body.writeTo(exchange.getResponseBody());
+		}
+		catch(RuntimeException e)
+		{
+			sendError(exchange, 500, "Scheduling failed: " + e);
+		}
+		finally
+		{
+			exchange.close();
+		}
+	}
+
+	private static void writeSchedule(Writer out, Schedule s, ScheduleSummary summary, boolean timedOut, long elapsed)
+	{
+		JSONWriter json = new JSONWriter(out);
+		json.object();
+		json.key("timedOut").value(timedOut);
+		json.key("elapsedMillis").value(elapsed);
+		json.key("completed").value(summary.getCompleted());
+		json.key("remaining").value(summary.getRemaining());
+		json.key("emptySeats").value(summary.getEmptySeats());
+		json.key("allocations").array();
+		for(FlightInfo f : s.getCompletedAllocations())
+		{
+			json.object();
+			json.key("flight").value(f.getFlight().getFlightNumber());
+			json.key("date").value(f.getDepartureDateTime().toLocalDate().toString());
+			json.key("aircraft").value(s.getAircraftFor(f).getTailCode());
+			json.key("captain").value(AllocationRecord.nameOf(s.getCaptainOf(f)));
+			json.key("firstOfficer").value(AllocationRecord.nameOf(s.getFirstOfficerOf(f)));
+			json.key("cabinCrew").array();
+			for(CabinCrew c : s.getCabinCrewOf(f))
+			{
+				json.value(AllocationRecord.nameOf(c));
+			}
+			json.endArray();
+			json.endObject();
+		}
+		json.endArray();
+		json.key("unallocated").array();
+		for(FlightInfo f : s.getRemainingAllocations())
+		{
+			json.object();
+			json.key("flight").value(f.getFlight().getFlightNumber());
+			json.key("date").value(f.getDepartureDateTime().toLocalDate().toString());
+			json.endObject();
+		}
+		json.endArray();
+		json.endObject();
+	}
+
+	private static Scenario parseScenario(HashMap<String,String> query)
+	{
+		Scenario scenario = new Scenario("request");
+		if(query.containsKey("removeAircraft"))
+		{
+			for(String tailCode : query.get("removeAircraft").split(","))
+			{
+				scenario.removeAircraft(tailCode.trim());
+			}
+		}
+		if(query.containsKey("strike"))
+		{
+			for(String base : query.get("strike").split(","))
+			{
+				scenario.strikeAtBase(base.trim());
+			}
+		}
+		if(query.containsKey("scale"))
+		{
+			scenario.scalePassengers(Double.parseDouble(query.get("scale")));
+		}
+		return scenario;
+	}
+
+	private static HashMap<String,String> parseQuery(String rawQuery)
+	{
+		HashMap<String,String> query = new HashMap<String,String>();
+		if(rawQuery == null)
+		{
+			return query;
+		}
+		for(String pair : rawQuery.split("&"))
+		{
+			int equals = pair.indexOf('=');
+			if(equals > 0)
+			{
+				try
+				{
+					query.put(URLDecoder.decode(pair.substring(0, equals), "UTF-8"), URLDecoder.decode(pair.substring(equals + 1), "UTF-8"));
+				}
+				catch(IOException e)
+				{
+					//UTF-8 is always supported
+				}
+			}
+		}
+		return query;
+	}
+
+	private static void sendError(HttpExchange exchange, int status, String message) throws IOException
+	{
+		byte[] body = message.getBytes(StandardCharsets.UTF_8);
+		exchange.sendResponseHeaders(status, body.length);
+		exchange.getResponseBody().write(body);
+	}
+
+	/**
+	 * Loads the data files from ./data and serves schedule requests until the process is killed
+	 * @param args optionally the port to listen on, 8080 by default
+	 */
+	public static void main(String[] args) 
+	{
+		int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+		DataReloader data = new DataReloader(Paths.get("./data/aircraft.csv"), Paths.get("./data/crew.json"),
+				Paths.get("./data/routes.xml"), Paths.get("./data/passengernumbers.db"));
+		try 
+		{
+			data.load();
+			data.start();
+			SchedulerService service = new SchedulerService(data, Runtime.getRuntime().availableProcessors());
+			service.start(port);
+			System.out.println("Scheduling on http://localhost:" + port + "/schedule");
+		}
+		catch (DataLoadingException dle) 
+		{
+			System.err.println("Error loading data");
+			dle.printStackTrace();
+		}
+		catch (IOException ioe) 
+		{
+			System.err.println("Error starting the service");
+			ioe.printStackTrace();
+		}
+	}
+}
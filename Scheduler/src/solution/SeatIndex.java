@@ -0,0 +1,93 @@
+package solution;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import baseclasses.Aircraft;
+import baseclasses.FlightInfo;
+import baseclasses.Schedule;
+
+/**
+ * The SeatIndex holds a group of aircraft sorted by seats, so the best fit for a passenger forecast
+ * is found by a binary search and a short scan rather than by checking every aircraft
+ */
+class SeatIndex
+{
+	private Aircraft[] planes;
+	private int[] seats;
+
+	/**
+	 * Builds the index, aircraft with the same seats keep the order they were given in
+	 * @param toIndex the aircraft to index
+	 */
+	SeatIndex(List<Aircraft> toIndex)
+	{
+		planes = toIndex.toArray(new Aircraft[toIndex.size()]);
+		Arrays.sort(planes, Comparator.comparingInt(Aircraft::getSeats));
+		seats = new int[planes.length];
+		for(int i = 0; i < planes.length; i++)
+		{
+			seats[i] = planes[i].getSeats();
+		}
+	}
+
+	/**
+	 * Returns the free aircraft with the fewest empty seats for the forecast,
+	 * or the largest free aircraft if none of them has enough seats
+	 * @param passNo the forecast passengers, or -1 if unknown
+	 * @param s the schedule the aircraft must be free in
+	 * @param flight the flight the aircraft must be free for
+	 * @return the best aircraft, or null if none of them is free
+	 */
+	Aircraft findBest(int passNo, Schedule s, FlightInfo flight)
+	{
+		int first = firstWithAtLeast(passNo);
+		for(int i = first; i < planes.length; i++)
+		{
+			if(!s.hasConflict(planes[i], flight))
+			{
+				return planes[i];
+			}
+		}
+		for(int i = first - 1; i >= 0; i--)
+		{
+			if(!s.hasConflict(planes[i], flight))
+			{
+				//prefer the earliest free aircraft of this size, as the upward scan does
+				int j = i;
+				while(j > 0 && seats[j - 1] == seats[i])
+				{
+					j--;
+				}
+				for(; j < i; j++)
+				{
+					if(!s.hasConflict(planes[j], flight))
+					{
+						return planes[j];
+					}
+				}
+				return planes[i];
+			}
+		}
+		return null;
+	}
+
+	private int firstWithAtLeast(int passNo)
+	{
+		int low = 0;
+		int high = seats.length;
+		while(low < high)
+		{
+			int mid = (low + high) >>> 1;
+			if(seats[mid] < passNo)
+			{
+				low = mid + 1;
+			}
+			else
+			{
+				high = mid;
+			}
+		}
+		return low;
+	}
+}
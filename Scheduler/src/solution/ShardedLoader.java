@@ -0,0 +1,201 @@
+package solution;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+import baseclasses.DataLoadingException;
+
+/**
+ * The ShardedLoader loads data split across many files, such as a regional export, into a DAO in one step
+ * Each file is parsed into its own DAO in parallel, then they are all merged into the target and published together,
+ * so readers see either none of the files or all of them
+ * Files are merged in order of name, and where two files hold the same aircraft, route or forecast the later file wins.
+ * Crew have no key, so the crew of every file are kept
+ */
+public class ShardedLoader
+{
+	private int threads;
+
+	/**
+	 * Creates a loader that parses files on the specified number of threads
+	 * @param threads the most files to parse at once
+	 */
+	public ShardedLoader(int threads)
+	{
+		this.threads = threads;
+	}
+
+	/**
+	 * Creates a loader that parses as many files at once as there are processors
+	 */
+	public ShardedLoader()
+	{
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Finds the files to load, sorted by name
+	 * @param source a directory, to load every file in it, or a glob of file names in a directory, e.g. "./data/aircraft-*.csv"
+	 * @return the matching files in the order they are merged
+	 * @throws DataLoadingException if the directory cannot be read
+	 */
+	public static List<Path> findShards(String source) throws DataLoadingException
+	{
+		Path directory;
+		String pattern;
+		if(!source.matches(".*[*?\\[{].*") && Files.isDirectory(Paths.get(source)))
+		{
+			directory = Paths.get(source);
+			pattern = "*";
+		}
+		else
+		{
+			int slash = Math.max(source.lastIndexOf('/'), source.lastIndexOf(File.separatorChar));
+			directory = Paths.get(slash == -1 ? "." : source.substring(0, slash + 1));
+			pattern = source.substring(slash + 1);
+		}
+		PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + pattern);
+		ArrayList<Path> shards = new ArrayList<Path>();
+		try(DirectoryStream<Path> files = Files.newDirectoryStream(directory))
+		{
+			for(Path file : files)
+			{
+				if(Files.isRegularFile(file) && matcher.matches(file.getFileName()))
+				{
+					shards.add(file);
+				}
+			}
+		}
+		catch(IOException e)
+		{
+			throw new DataLoadingException(e);
+		}
+		Collections.sort(shards);
+		return shards;
+	}
+
+	/**
+	 * Loads every matching aircraft CSV file into the target, adding them to the aircraft already loaded
+	 * @param target the DAO to load into, its validator checks every file
+	 * @param source a directory or glob of files, as for findShards()
+	 * @throws DataLoadingException if any file cannot be loaded, in which case none of them are
+	 */
+	public void loadAircraftData(AircraftDAO target, String source) throws DataLoadingException
+	{
+		target.merge(loadShards(findShards(source), () ->
+		{
+			AircraftDAO shard = new AircraftDAO();
+			shard.setValidator(target.getValidator());
+			return shard;
+		}, AircraftDAO::loadAircraftData));
+	}
+
+	/**
+	 * Loads every matching crew JSON file into the target, adding them to the crew already loaded
+	 * @param target the DAO to load into, its validator checks every file
+	 * @param source a directory or glob of files, as for findShards()
+	 * @throws DataLoadingException if any file cannot be loaded, in which case none of them are
+	 */
+	public void loadCrewData(CrewDAO target, String source) throws DataLoadingException
+	{
+		target.merge(loadShards(findShards(source), () ->
+		{
+			CrewDAO shard = new CrewDAO();
+			shard.setValidator(target.getValidator());
+			return shard;
+		}, CrewDAO::loadCrewData));
+	}
+
+	/**
+	 * Loads every matching route XML file into the target, adding them to the routes already loaded
+	 * @param target the DAO to load into, its validator checks every file
+	 * @param source a directory or glob of files, as for findShards()
+	 * @throws DataLoadingException if any file cannot be loaded, in which case none of them are
+	 */
+	public void loadRouteData(RouteDAO target, String source) throws DataLoadingException
+	{
+		target.merge(loadShards(findShards(source), () ->
+		{
+			RouteDAO shard = new RouteDAO();
+			shard.setValidator(target.getValidator());
+			return shard;
+		}, RouteDAO::loadRouteData));
+	}
+
+	/**
+	 * Loads every matching passenger numbers database into the target, adding them to the forecasts already loaded
+	 * @param target the DAO to load into
+	 * @param source a directory or glob of files, as for findShards()
+	 * @throws DataLoadingException if any file cannot be loaded, in which case none of them are
+	 */
+	public void loadPassengerNumbersData(PassengerNumbersDAO target, String source) throws DataLoadingException
+	{
+		target.merge(loadShards(findShards(source), PassengerNumbersDAO::new, PassengerNumbersDAO::loadPassengerNumbersData));
+	}
+
+	/**
+	 * Loads each file into a new DAO of its own, in parallel
+	 * @return the DAOs in the same order as the files
+	 */
+	private <T> List<T> loadShards(List<Path> shards, Supplier<T> create, ShardLoad<T> load) throws DataLoadingException
+	{
+		ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, shards.size())));
+		try
+		{
+			ArrayList<Future<T>> futures = new ArrayList<Future<T>>();
+			for(Path shard : shards)
+			{
+				futures.add(pool.submit(() ->
+				{
+					T dao = create.get();
+					load.load(dao, shard);
+					return dao;
+				}));
+			}
+			ArrayList<T> loaded = new ArrayList<T>();
+			for(Future<T> future : futures)
+			{
+				loaded.add(future.get());
+			}
+			return loaded;
+		}
+		catch(ExecutionException e)
+		{
+			if(e.getCause() instanceof DataLoadingException)
+			{
+				throw (DataLoadingException)e.getCause();
+			}
+			throw new DataLoadingException(e.getCause());
+		}
+		catch(InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new DataLoadingException(e);
+		}
+		finally
+		{
+			pool.shutdownNow();
+		}
+	}
+
+	/**
+	 * Loads one file into a DAO
+	 */
+	private interface ShardLoad<T>
+	{
+		void load(T dao, Path shard) throws DataLoadingException;
+	}
+}
@@ -0,0 +1,251 @@
+package solution;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+
+import baseclasses.Aircraft;
+import baseclasses.CabinCrew;
+import baseclasses.IAircraftDAO;
+import baseclasses.ICrewDAO;
+import baseclasses.Pilot;
+
+/**
+ * The TypeRatingMatrix is built once for each version of the loaded data and maps every aircraft type in the fleet to bitsets of the
+ * captains, first officers and cabin crew qualified to fly it, overall and split by home base
+ * Bits are positions in getPilots() and getCabinCrew(), which keep the crew DAO's order
+ * The bitsets returned are shared and must not be modified, clone them before combining them with anything
+ */
+class TypeRatingMatrix
+{
+	private static final BitSet EMPTY = new BitSet();
+	private static volatile Cached cached;
+
+	private CodeDictionary typeCodes = new CodeDictionary();
+	private CodeDictionary airportCodes = new CodeDictionary();
+	private Pilot[] pilots;
+	private CabinCrew[] cabinCrew;
+	private HashMap<String,Integer> pilotsByName = new HashMap<String,Integer>();
+	private HashMap<String,Integer> cabinCrewByName = new HashMap<String,Integer>();
+	private BitSet allCaptains = new BitSet();
+	private BitSet allFirstOfficers = new BitSet();
+	private BitSet allCabinCrew = new BitSet();
+	private BitSet[] captainsByType;
+	private BitSet[] firstOfficersByType;
+	private BitSet[] cabinCrewByType;
+	private BitSet[][] captainsByTypeAndBase;
+	private BitSet[][] firstOfficersByTypeAndBase;
+	private BitSet[][] cabinCrewByTypeAndBase;
+
+	/**
+	 * Returns the matrix for the specified fleet and crew, reusing the last one built while the loaded data is unchanged
+	 * Only the DAOs loaded from files have a version to check, so any other DAO, such as a scenario view, gets a new matrix
+	 * @param planes the aircraft whose types are to be mapped
+	 * @param crew the crew to map to them
+	 * @return the matrix
+	 */
+	static TypeRatingMatrix forData(IAircraftDAO planes, ICrewDAO crew)
+	{
+		if(!(planes instanceof AircraftDAO) || !(crew instanceof CrewDAO))
+		{
+			return new TypeRatingMatrix(planes, crew);
+		}
+		Object fleet = ((AircraftDAO)planes).getVersion();
+		Object roster = ((CrewDAO)crew).getVersion();
+		Cached last = cached;
+		if(last != null && last.fleet == fleet && last.roster == roster)
+		{
+			return last.matrix;
+		}
+		TypeRatingMatrix matrix = new TypeRatingMatrix(planes, crew);
+		//only cache it if nothing was loaded while it was being built
+		if(((AircraftDAO)planes).getVersion() == fleet && ((CrewDAO)crew).getVersion() == roster)
+		{
+			cached = new Cached(fleet, roster, matrix);
+		}
+		return matrix;
+	}
+
+	/**
+	 * Builds the matrix for the specified fleet and crew
+	 * @param planes the aircraft whose types are to be mapped
+	 * @param crew the crew to map to them
+	 */
+	TypeRatingMatrix(IAircraftDAO planes, ICrewDAO crew)
+	{
+		for(Aircraft a : planes.getAllAircraft())
+		{
+			typeCodes.idOf(a.getTypeCode());
+		}
+		List<Pilot> allPilots = crew.getAllPilots();
+		List<CabinCrew> allCabin = crew.getAllCabinCrew();
+		pilots = allPilots.toArray(new Pilot[allPilots.size()]);
+		cabinCrew = allCabin.toArray(new CabinCrew[allCabin.size()]);
+		int[] pilotBases = new int[pilots.length];
+		int[] cabinBases = new int[cabinCrew.length];
+		for(int i = 0; i < pilots.length; i++)
+		{
+			pilotBases[i] = airportCodes.idOf(pilots[i].getHomeBase());
+			pilotsByName.putIfAbsent(AllocationRecord.nameOf(pilots[i]), i);
+		}
+		for(int i = 0; i < cabinCrew.length; i++)
+		{
+			cabinBases[i] = airportCodes.idOf(cabinCrew[i].getHomeBase());
+			cabinCrewByName.putIfAbsent(AllocationRecord.nameOf(cabinCrew[i]), i);
+		}
+
+		int types = typeCodes.size();
+		int bases = airportCodes.size();
+		captainsByType = newBitSets(types);
+		firstOfficersByType = newBitSets(types);
+		cabinCrewByType = newBitSets(types);
+		captainsByTypeAndBase = new BitSet[types][];
+		firstOfficersByTypeAndBase = new BitSet[types][];
+		cabinCrewByTypeAndBase = new BitSet[types][];
+		for(int t = 0; t < types; t++)
+		{
+			captainsByTypeAndBase[t] = newBitSets(bases);
+			firstOfficersByTypeAndBase[t] = newBitSets(bases);
+			cabinCrewByTypeAndBase[t] = newBitSets(bases);
+		}
+
+		for(int i = 0; i < pilots.length; i++)
+		{
+			boolean captain = pilots[i].getRank().equals(Pilot.Rank.CAPTAIN);
+			(captain ? allCaptains : allFirstOfficers).set(i);
+			for(int t = 0; t < types; t++)
+			{
+				if(pilots[i].isQualifiedFor(typeCodes.codeOf(t)))
+				{
+					(captain ? captainsByType : firstOfficersByType)[t].set(i);
+					(captain ? captainsByTypeAndBase : firstOfficersByTypeAndBase)[t][pilotBases[i]].set(i);
+				}
+			}
+		}
+		for(int i = 0; i < cabinCrew.length; i++)
+		{
+			allCabinCrew.set(i);
+			for(int t = 0; t < types; t++)
+			{
+				if(cabinCrew[i].isQualifiedFor(typeCodes.codeOf(t)))
+				{
+					cabinCrewByType[t].set(i);
+					cabinCrewByTypeAndBase[t][cabinBases[i]].set(i);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return every pilot, in the crew DAO's order
+	 */
+	Pilot[] getPilots()
+	{
+		return pilots;
+	}
+
+	/**
+	 * @return every cabin crew member, in the crew DAO's order
+	 */
+	CabinCrew[] getCabinCrew()
+	{
+		return cabinCrew;
+	}
+
+	/**
+	 * Returns the captains qualified for a type and based at an airport
+	 * @param typeCode the aircraft type, or null for captains of any type
+	 * @param airportCode the home base, or null for captains based anywhere
+	 * @return the positions of the matching captains
+	 */
+	BitSet getCaptains(String typeCode, String airportCode)
+	{
+		return select(allCaptains, captainsByType, captainsByTypeAndBase, typeCode, airportCode);
+	}
+
+	/**
+	 * Returns the first officers qualified for a type and based at an airport
+	 * @param typeCode the aircraft type, or null for first officers of any type
+	 * @param airportCode the home base, or null for first officers based anywhere
+	 * @return the positions of the matching first officers
+	 */
+	BitSet getFirstOfficers(String typeCode, String airportCode)
+	{
+		return select(allFirstOfficers, firstOfficersByType, firstOfficersByTypeAndBase, typeCode, airportCode);
+	}
+
+	/**
+	 * Returns the cabin crew qualified for a type and based at an airport
+	 * @param typeCode the aircraft type, or null for cabin crew of any type
+	 * @param airportCode the home base, or null for cabin crew based anywhere
+	 * @return the positions of the matching cabin crew
+	 */
+	BitSet getCabinCrew(String typeCode, String airportCode)
+	{
+		return select(allCabinCrew, cabinCrewByType, cabinCrewByTypeAndBase, typeCode, airportCode);
+	}
+
+	/**
+	 * Returns the position of the pilot with the specified name
+	 * @param name the pilot's forename and surname separated by a space
+	 * @return the position of the pilot, or -1 if there is no pilot with that name
+	 */
+	int indexOfPilot(String name)
+	{
+		Integer i = pilotsByName.get(name);
+		return i == null ? -1 : i;
+	}
+
+	/**
+	 * Returns the position of the cabin crew member with the specified name
+	 * @param name the cabin crew member's forename and surname separated by a space
+	 * @return the position of the cabin crew member, or -1 if there is none with that name
+	 */
+	int indexOfCabinCrew(String name)
+	{
+		Integer i = cabinCrewByName.get(name);
+		return i == null ? -1 : i;
+	}
+
+	private BitSet select(BitSet all, BitSet[] byType, BitSet[][] byTypeAndBase, String typeCode, String airportCode)
+	{
+		if(typeCode == null)
+		{
+			return all;
+		}
+		int type = typeCodes.lookup(typeCode);
+		if(type == -1)
+		{
+			return EMPTY;
+		}
+		if(airportCode == null)
+		{
+			return byType[type];
+		}
+		int base = airportCodes.lookup(airportCode);
+		return base == -1 ? EMPTY : byTypeAndBase[type][base];
+	}
+
+	private static BitSet[] newBitSets(int n)
+	{
+		BitSet[] sets = new BitSet[n];
+		for(int i = 0; i < n; i++)
+		{
+			sets[i] = new BitSet();
+		}
+		return sets;
+	}
+
+	private static class Cached
+	{
+		private final Object fleet;
+		private final Object roster;
+		private final TypeRatingMatrix matrix;
+
+		Cached(Object fleet, Object roster, TypeRatingMatrix matrix)
+		{
+			this.fleet = fleet;
+			this.roster = roster;
+			this.matrix = matrix;
+		}
+	}
+}
@@ -0,0 +1,52 @@
+package solution;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.Test;
+
+import baseclasses.Schedule;
+
+public class SchedulerTest 
+{
+	/**
+	 * With one aircraft, every flight departing while it is in the air has no aircraft free,
+	 * and those flights should be left unallocated rather than failing the run
+	 */
+	@Test
+	public void leavesFlightsUnallocatedWhenThereAreFewerAircraftThanOverlappingFlights() throws Exception
+	{
+		Path oneAircraft = Files.createTempFile("aircraft", ".csv");
+		try
+		{
+			List<String> lines = Files.readAllLines(Paths.get("./data/aircraft.csv"));
+			Files.write(oneAircraft, lines.subList(0, 2));
+			AircraftDAO aircraft = new AircraftDAO();
+			CrewDAO crew = new CrewDAO();
+			RouteDAO routes = new RouteDAO();
+			PassengerNumbersDAO passengers = new PassengerNumbersDAO();
+			aircraft.loadAircraftData(oneAircraft);
+			crew.loadCrewData(Paths.get("./data/crew.json"));
+			routes.loadRouteData(Paths.get("./data/routes.xml"));
+			passengers.loadPassengerNumbersData(Paths.get("./data/passengernumbers.db"));
+
+			LocalDate day = LocalDate.parse("2020-07-01");
+			Scheduler scheduler = new Scheduler();
+			Schedule s = scheduler.generateSchedule(aircraft, crew, routes, passengers, day, day);
+
+			FeasibilityCheck check = scheduler.getLastFeasibilityCheck();
+			assertTrue(check.getPeakConcurrent() > 1);
+			assertTrue(check.getFewestLost() > 0);
+			assertFalse(s.getRemainingAllocations().isEmpty());
+		}
+		finally
+		{
+			Files.deleteIfExists(oneAircraft);
+		}
+	}
+}